@@ -4,31 +4,84 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.Cache;
 import org.springframework.cache.interceptor.CacheErrorHandler;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * @Description redis异常处理
+ * @Description redis异常处理，同一缓存同一操作在间隔内只记录一次日志，其余只计数并在下次记录时输出被忽略的次数
  * @Author chenxudong
  * @Date 2019/11/20 14:48
  */
 @Slf4j
 public class MyCacheErrorHandler implements CacheErrorHandler {
 
+	private final long logIntervalMillis;
+
+	private final ConcurrentMap<String, LogWindow> windows = new ConcurrentHashMap<>();
+
+	public MyCacheErrorHandler() {
+		this(10000);
+	}
+
+	/**
+	 * @param logIntervalMillis 日志记录间隔(毫秒)，小于等于0表示每次都记录
+	 */
+	public MyCacheErrorHandler(long logIntervalMillis) {
+		this.logIntervalMillis = logIntervalMillis;
+	}
+
+	private static class LogWindow {
+		private final AtomicLong lastLogAt = new AtomicLong();
+		private final AtomicLong suppressed = new AtomicLong();
+	}
+
 	@Override
 	public void handleCacheGetError(RuntimeException e, Cache cache, Object o) {
-		log.error("Redis缓存CacheGet方法异常,缓存队列名:{},key:{}", cache.getName(), o.toString(), e);
+		long suppressed = tryAcquire(cache, "get");
+		if (suppressed >= 0) {
+			log.error("Redis缓存CacheGet方法异常,缓存队列名:{},key:{},忽略次数:{}", cache.getName(), o, suppressed, e);
+		}
 	}
 
 	@Override
 	public void handleCachePutError(RuntimeException e, Cache cache, Object o, Object o1) {
-		log.error("Redis缓存CachePut方法异常,缓存队列名:{},key:{}", cache.getName(), o.toString(), e);
+		long suppressed = tryAcquire(cache, "put");
+		if (suppressed >= 0) {
+			log.error("Redis缓存CachePut方法异常,缓存队列名:{},key:{},忽略次数:{}", cache.getName(), o, suppressed, e);
+		}
 	}
 
 	@Override
 	public void handleCacheEvictError(RuntimeException e, Cache cache, Object o) {
-		log.error("Redis缓存CacheEvict方法异常,缓存队列名:{},key:{}", cache.getName(), o.toString(), e);
+		long suppressed = tryAcquire(cache, "evict");
+		if (suppressed >= 0) {
+			log.error("Redis缓存CacheEvict方法异常,缓存队列名:{},key:{},忽略次数:{}", cache.getName(), o, suppressed, e);
+		}
 	}
 
 	@Override
 	public void handleCacheClearError(RuntimeException e, Cache cache) {
-		log.error("Redis缓存CacheClear方法异常,缓存队列名:{}", cache.getName(), e);
+		long suppressed = tryAcquire(cache, "clear");
+		if (suppressed >= 0) {
+			log.error("Redis缓存CacheClear方法异常,缓存队列名:{},忽略次数:{}", cache.getName(), suppressed, e);
+		}
+	}
+
+	/**
+	 * @return 允许记录日志时返回上次记录后被忽略的次数，否则返回-1
+	 */
+	private long tryAcquire(Cache cache, String operation) {
+		if (logIntervalMillis <= 0) {
+			return 0;
+		}
+		LogWindow window = windows.computeIfAbsent(cache.getName() + ":" + operation, k -> new LogWindow());
+		long now = System.currentTimeMillis();
+		long last = window.lastLogAt.get();
+		if (now - last >= logIntervalMillis && window.lastLogAt.compareAndSet(last, now)) {
+			return window.suppressed.getAndSet(0);
+		}
+		window.suppressed.incrementAndGet();
+		return -1;
 	}
 }
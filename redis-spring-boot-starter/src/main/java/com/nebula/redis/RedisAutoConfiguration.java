@@ -6,8 +6,37 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import com.nebula.redis.cache.CacheCircuitBreaker;
+import com.nebula.redis.cache.ExtendedRedisCacheManager;
+import com.nebula.redis.cache.RedisCacheSnapshot;
+import com.nebula.redis.cache.ScanUnlinkBatchStrategy;
+import com.nebula.redis.limiter.RateLimit;
+import com.nebula.redis.limiter.RateLimitInterceptor;
+import com.nebula.redis.limiter.RedisRateLimiter;
+import com.nebula.redis.pool.RedisPoolMonitor;
+import com.nebula.redis.pool.RedisPoolWarmer;
+import com.nebula.redis.serializer.AccessorModules;
+import com.nebula.redis.serializer.ReusableJackson2JsonRedisSerializer;
+import com.nebula.redis.serializer.TypedJackson2JsonRedisSerializer;
+import com.nebula.redis.service.BufferedRedisCounter;
+import com.nebula.redis.service.RedisBloomFilter;
+import com.nebula.redis.service.RedisCounter;
+import com.nebula.redis.service.RedisLeaderboard;
+import com.nebula.redis.service.RedisScriptRegistry;
+import com.nebula.redis.service.RedisTimeSeries;
+import com.nebula.redis.service.RedisTimeoutExecutor;
+import com.nebula.redis.shard.RedisShardRouter;
+import com.nebula.redis.shard.ShardedRedisCacheWriter;
+import com.nebula.redis.tenant.RedisTenantRegistry;
+import com.nebula.redis.tenant.TenantQuota;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
@@ -16,12 +45,15 @@ import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPassword;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.util.CollectionUtils;
@@ -29,6 +61,8 @@ import org.springframework.util.CollectionUtils;
 import java.lang.reflect.Method;
 import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -43,13 +77,24 @@ import java.util.Map;
 public class RedisAutoConfiguration extends CachingConfigurerSupport {
 
 	private final static String separator = ":";
-	private final static Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
+	private final static RedisSerializer<Object> jackson2JsonRedisSerializer;
+
+	/**
+	 * 按缓存名配置了值类型时使用，不开启默认类型信息
+	 */
+	private final static ObjectMapper typedObjectMapper = new ObjectMapper();
+
+	@Value("${spring.redis.cache.error-log-interval:10000}")
+	private long errorLogIntervalMillis;
 
 	static {
 		ObjectMapper om = new ObjectMapper();
 		om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
 		om.activateDefaultTyping( LaissezFaireSubTypeValidator.instance,ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.WRAPPER_ARRAY);
-		jackson2JsonRedisSerializer.setObjectMapper(om);
+		AccessorModules.register(om);
+		jackson2JsonRedisSerializer = new ReusableJackson2JsonRedisSerializer(om);
+		typedObjectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+		AccessorModules.register(typedObjectMapper);
 	}
 
 	@Bean
@@ -82,14 +127,86 @@ public class RedisAutoConfiguration extends CachingConfigurerSupport {
 
 	@Bean
 	public CacheManager cacheManager(RedisConnectionFactory factory,
+									 RedisBloomFilter redisBloomFilter,
+									 CacheCircuitBreaker cacheCircuitBreaker,
+									 ObjectProvider<RedisShardRouter> redisShardRouter,
 									 @Value("${spring.redis.cache.expiration:0}") long expiration,
-									 @Value("#{${spring.redis.cache.expries:}}") Map<String, Long> expries) {
+									 @Value("#{${spring.redis.cache.expries:}}") Map<String, Long> expries,
+									 @Value("#{${spring.redis.cache.types:}}") Map<String, String> types,
+									 @Value("#{${spring.redis.cache.bloom-filters:}}") Map<String, Long> bloomFilters,
+									 @Value("#{${spring.redis.cache.null-expries:}}") Map<String, Long> nullExpries,
+									 @Value("${spring.redis.cache.clear-batch-size:1000}") int clearBatchSize,
+									 @Value("#{${spring.redis.cache.versions:}}") Map<String, Integer> versions,
+									 @Value("${spring.redis.cache.previous-version-expiration:3600}") long previousVersionExpiration) {
 		RedisCacheConfiguration defaultCacheConfiguration = createCacheConfiguration(expiration)
 				.serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(jackson2JsonRedisSerializer));
 		Map<String, RedisCacheConfiguration> cacheConfigurationMap = getExpries(expries);
-		RedisCacheWriter cacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(factory);
-		return RedisCacheManager.builder(cacheWriter).cacheDefaults(defaultCacheConfiguration).
-				withInitialCacheConfigurations(cacheConfigurationMap).build();
+		applyValueTypes(cacheConfigurationMap, types, expiration);
+		RedisShardRouter shardRouter = redisShardRouter.getIfAvailable();
+		RedisCacheWriter cacheWriter = shardRouter != null
+				? new ShardedRedisCacheWriter(shardRouter, new ScanUnlinkBatchStrategy(clearBatchSize))
+				: RedisCacheWriter.nonLockingRedisCacheWriter(factory, new ScanUnlinkBatchStrategy(clearBatchSize));
+		ExtendedRedisCacheManager cacheManager = new ExtendedRedisCacheManager(cacheWriter, defaultCacheConfiguration, cacheConfigurationMap);
+		if (!CollectionUtils.isEmpty(bloomFilters)) {
+			bloomFilters.forEach((name, insertions) -> {
+				if (insertions != null && insertions > 0) {
+					redisBloomFilter.setExpectedInsertions(name, insertions);
+				}
+			});
+			cacheManager.setBloomFilter(redisBloomFilter, bloomFilters.keySet());
+		}
+		cacheManager.setNullValueTtls(getNullValueTtls(nullExpries));
+		cacheManager.setCircuitBreaker(cacheCircuitBreaker);
+		if (!CollectionUtils.isEmpty(versions)) {
+			Duration previousVersionTtl = previousVersionExpiration > 0 ? Duration.ofSeconds(previousVersionExpiration) : null;
+			if (shardRouter != null) {
+				cacheManager.setKeyVersions(versions, previousVersionTtl, shardRouter::getConnectionFactories);
+			} else {
+				cacheManager.setKeyVersions(versions, previousVersionTtl, factory);
+			}
+		}
+		return cacheManager;
+	}
+
+	@Bean
+	public CacheCircuitBreaker cacheCircuitBreaker(@Value("${spring.redis.cache.circuit-breaker.failure-threshold:5}") int failureThreshold,
+												   @Value("${spring.redis.cache.circuit-breaker.slow-call:1000}") long slowCallMillis,
+												   @Value("${spring.redis.cache.circuit-breaker.open-duration:10000}") long openDurationMillis) {
+		return new CacheCircuitBreaker(failureThreshold, slowCallMillis, openDurationMillis);
+	}
+
+	@Bean
+	public RedisCacheSnapshot redisCacheSnapshot(RedisConnectionFactory factory,
+												 ObjectProvider<RedisShardRouter> redisShardRouter,
+												 @Value("${spring.redis.cache.snapshot.batch-size:500}") int batchSize,
+												 @Value("${spring.redis.cache.snapshot.rate:20000}") long entriesPerSecond) {
+		RedisShardRouter shardRouter = redisShardRouter.getIfAvailable();
+		if (shardRouter != null) {
+			return new RedisCacheSnapshot(shardRouter::getConnectionFactories,
+					key -> shardRouter.nodeFor(key).getConnectionFactory(), batchSize, entriesPerSecond);
+		}
+		return new RedisCacheSnapshot(factory, batchSize, entriesPerSecond);
+	}
+
+	@Bean
+	public RedisBloomFilter redisBloomFilter(RedisTemplate<String, Object> redisTemplate,
+											 @Value("${spring.redis.bloom.key-prefix:bloom:}") String keyPrefix,
+											 @Value("${spring.redis.bloom.expected-insertions:1000000}") long expectedInsertions,
+											 @Value("${spring.redis.bloom.fpp:0.01}") double fpp,
+											 @Value("${spring.redis.bloom.mode:AUTO}") RedisBloomFilter.Mode mode) {
+		return new RedisBloomFilter(redisTemplate, keyPrefix, expectedInsertions, fpp, mode);
+	}
+
+	private static Map<String, Duration> getNullValueTtls(Map<String, Long> nullExpries) {
+		Map<String, Duration> ttls = new HashMap<>();
+		if (!CollectionUtils.isEmpty(nullExpries)) {
+			for (Map.Entry<String, Long> entry : nullExpries.entrySet()) {
+				if (entry.getValue() != null && entry.getValue() > 0) {
+					ttls.put(entry.getKey(), Duration.ofSeconds(entry.getValue()));
+				}
+			}
+		}
+		return ttls;
 	}
 
 	private static long getDefaultExpiration(long expiration) {
@@ -118,6 +235,24 @@ public class RedisAutoConfiguration extends CachingConfigurerSupport {
 
 	}
 
+	/**
+	 * 为配置了值类型的缓存替换为单一类型序列化器，过期时间沿用expries或默认配置
+	 */
+	private static void applyValueTypes(Map<String, RedisCacheConfiguration> configurations, Map<String, String> types, long expiration) {
+		if (CollectionUtils.isEmpty(types)) {
+			return;
+		}
+		for (Map.Entry<String, String> entry : types.entrySet()) {
+			try {
+				RedisCacheConfiguration configuration = configurations.getOrDefault(entry.getKey(), createCacheConfiguration(expiration));
+				configurations.put(entry.getKey(), configuration.serializeValuesWith(RedisSerializationContext.SerializationPair
+						.fromSerializer(TypedJackson2JsonRedisSerializer.of(typedObjectMapper, entry.getValue()))));
+			} catch (Exception e) {
+				log.error("缓存值类型配置异常,缓存队列名:{},类型:{}", entry.getKey(), entry.getValue(), e);
+			}
+		}
+	}
+
 	@Bean
 	public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory factory) {
 		StringRedisSerializer stringRedisSerializer = new StringRedisSerializer();
@@ -131,6 +266,144 @@ public class RedisAutoConfiguration extends CachingConfigurerSupport {
 		return template;
 	}
 
+	@Bean
+	public RedisScriptRegistry redisScriptRegistry(RedisTemplate<String, Object> redisTemplate,
+												   @Value("${spring.redis.script.locations:classpath*:redis/scripts/*.lua}") String locations,
+												   @Value("${spring.redis.script.preload:true}") boolean preload) {
+		return new RedisScriptRegistry(redisTemplate, locations, preload);
+	}
+
+	@Bean
+	public RedisCounter redisCounter(RedisTemplate<String, Object> redisTemplate) {
+		return new RedisCounter(redisTemplate);
+	}
+
+	@Bean
+	public BufferedRedisCounter bufferedRedisCounter(RedisCounter redisCounter,
+													 @Value("${spring.redis.counter.flush-interval:1000}") long flushIntervalMillis,
+													 @Value("${spring.redis.counter.flush-threshold:100000}") long flushThreshold) {
+		return new BufferedRedisCounter(redisCounter, flushIntervalMillis, flushThreshold);
+	}
+
+	@Bean
+	public RedisTimeSeries redisTimeSeries(RedisTemplate<String, Object> redisTemplate) {
+		return new RedisTimeSeries(redisTemplate);
+	}
+
+	@Bean
+	public RedisLeaderboard redisLeaderboard(RedisTemplate<String, Object> redisTemplate,
+											 @Value("${spring.redis.leaderboard.flush-interval:500}") long flushIntervalMillis,
+											 @Value("${spring.redis.leaderboard.snapshot-size:100}") int snapshotSize,
+											 @Value("${spring.redis.leaderboard.snapshot-ttl:1000}") long snapshotTtlMillis) {
+		return new RedisLeaderboard(redisTemplate, flushIntervalMillis, snapshotSize, snapshotTtlMillis);
+	}
+
+	@Bean
+	public RedisRateLimiter redisRateLimiter(RedisTemplate<String, Object> redisTemplate,
+											 @Value("${spring.redis.rate-limit.key-prefix:rate_limit:}") String keyPrefix,
+											 @Value("${spring.redis.rate-limit.lease-expire:1000}") long leaseExpireMillis) {
+		RedisRateLimiter rateLimiter = new RedisRateLimiter(redisTemplate, keyPrefix);
+		rateLimiter.setLeaseExpireMillis(leaseExpireMillis);
+		return rateLimiter;
+	}
+
+	@Bean
+	@Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+	public Advisor rateLimitAdvisor(RedisRateLimiter redisRateLimiter) {
+		return new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(null, RateLimit.class, true),
+				new RateLimitInterceptor(redisRateLimiter));
+	}
+
+	@Bean
+	public RedisTimeoutExecutor redisTimeoutExecutor(RedisTemplate<String, Object> redisTemplate,
+													 @Value("${spring.redis.timeout-budget.read:0}") long readTimeoutMillis,
+													 @Value("${spring.redis.timeout-budget.write:0}") long writeTimeoutMillis,
+													 @Value("${spring.redis.timeout-budget.bulk:0}") long bulkTimeoutMillis,
+													 @Value("${spring.redis.timeout-budget.threads:64}") int threads,
+													 @Value("${spring.redis.hedge.enabled:false}") boolean hedgeEnabled,
+													 @Value("${spring.redis.hedge.replica:}") String hedgeReplica,
+													 @Value("${spring.redis.hedge.password:${spring.redis.password:}}") String hedgePassword,
+													 @Value("${spring.redis.database:0}") int database,
+													 @Value("${spring.redis.hedge.percentile:95}") double hedgePercentile,
+													 @Value("${spring.redis.hedge.min-delay:2}") long minHedgeDelayMillis) {
+		RedisTimeoutExecutor timeoutExecutor;
+		if (hedgeEnabled) {
+			// 对冲读必须发往另一个节点，发往同一连接只会加重慢节点的负载
+			if (hedgeReplica.trim().isEmpty()) {
+				throw new IllegalStateException("spring.redis.hedge.enabled requires spring.redis.hedge.replica (host:port of a replica)");
+			}
+			timeoutExecutor = new RedisTimeoutExecutor(redisTemplate, createConnectionFactory(hedgeReplica, hedgePassword, database),
+					threads, hedgePercentile, minHedgeDelayMillis);
+		} else {
+			timeoutExecutor = new RedisTimeoutExecutor(redisTemplate, (RedisTemplate<String, Object>) null,
+					threads, hedgePercentile, minHedgeDelayMillis);
+		}
+		timeoutExecutor.setTimeout(RedisTimeoutExecutor.Family.READ, readTimeoutMillis);
+		timeoutExecutor.setTimeout(RedisTimeoutExecutor.Family.WRITE, writeTimeoutMillis);
+		timeoutExecutor.setTimeout(RedisTimeoutExecutor.Family.BULK, bulkTimeoutMillis);
+		return timeoutExecutor;
+	}
+
+	@Bean
+	public RedisTenantRegistry redisTenantRegistry(RedisTemplate<String, Object> redisTemplate,
+												   @Value("${spring.redis.tenant.key-prefix:tenant:}") String keyPrefix,
+												   @Value("${spring.redis.tenant.ops-per-second:0}") long opsPerSecond,
+												   @Value("${spring.redis.tenant.max-keys:0}") long maxKeys,
+												   @Value("${spring.redis.tenant.refresh-interval:60000}") long refreshIntervalMillis) {
+		return new RedisTenantRegistry(redisTemplate, keyPrefix, new TenantQuota(opsPerSecond, maxKeys), refreshIntervalMillis);
+	}
+
+	/**
+	 * 配置spring.redis.shards.nodes(host:port列表)时启用客户端分片，缓存读写按一致性哈希分布到各节点
+	 */
+	@Bean
+	@ConditionalOnProperty(name = "spring.redis.shards.nodes")
+	public RedisShardRouter redisShardRouter(RedisTemplate<String, Object> redisTemplate,
+											 @Value("${spring.redis.shards.nodes}") List<String> nodes,
+											 @Value("${spring.redis.shards.password:${spring.redis.password:}}") String password,
+											 @Value("${spring.redis.shards.database:0}") int database,
+											 @Value("${spring.redis.shards.virtual-nodes:160}") int virtualNodes,
+											 @Value("${spring.redis.shards.threads:8}") int threads) {
+		Map<String, RedisConnectionFactory> factories = new LinkedHashMap<>();
+		for (String node : nodes) {
+			factories.put(node.trim(), createConnectionFactory(node, password, database));
+		}
+		return new RedisShardRouter(redisTemplate, factories, virtualNodes, threads);
+	}
+
+	/**
+	 * 按host:port创建并初始化单节点连接工厂
+	 */
+	private static LettuceConnectionFactory createConnectionFactory(String node, String password, int database) {
+		String address = node.trim();
+		int index = address.lastIndexOf(':');
+		RedisStandaloneConfiguration configuration = index > 0
+				? new RedisStandaloneConfiguration(address.substring(0, index), Integer.parseInt(address.substring(index + 1)))
+				: new RedisStandaloneConfiguration(address);
+		configuration.setDatabase(database);
+		if (!password.isEmpty()) {
+			configuration.setPassword(RedisPassword.of(password));
+		}
+		LettuceConnectionFactory connectionFactory = new LettuceConnectionFactory(configuration);
+		connectionFactory.afterPropertiesSet();
+		return connectionFactory;
+	}
+
+	@Bean
+	public RedisPoolMonitor redisPoolMonitor(RedisConnectionFactory factory) {
+		return new RedisPoolMonitor(factory);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "spring.redis.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+	public RedisPoolWarmer redisPoolWarmer(RedisConnectionFactory factory, RedisTemplate<String, Object> redisTemplate,
+										   RedisPoolMonitor redisPoolMonitor,
+										   @Value("${spring.redis.warm-up.connections:${spring.redis.lettuce.pool.min-idle:${spring.redis.jedis.pool.min-idle:1}}}") int connections,
+										   @Value("${spring.redis.warm-up.keys:}") List<String> keys,
+										   @Value("${spring.redis.warm-up.fail-fast:false}") boolean failFast) {
+		return new RedisPoolWarmer(factory, redisTemplate, redisPoolMonitor, connections, keys, failFast);
+	}
+
 //	public Jackson2JsonRedisSerializer getJackson2JsonRedisSerializer() {
 //		Jackson2JsonRedisSerializer<Object> jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer<>(Object.class);
 //		ObjectMapper om = new ObjectMapper();
@@ -143,7 +416,7 @@ public class RedisAutoConfiguration extends CachingConfigurerSupport {
 	@Override
 	@Bean
 	public CacheErrorHandler errorHandler() {
-		return new MyCacheErrorHandler();
+		return new MyCacheErrorHandler(errorLogIntervalMillis);
 	}
 
 }
@@ -0,0 +1,120 @@
+package com.nebula.redis.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description 缓存熔断器:连续失败(或超过慢调用阈值)达到次数后打开，打开期间缓存读写直接跳过(读视为未命中，写忽略)，删除不受熔断限制，
+ * 不再等待Redis超时；打开时长结束后进入半开状态，仅放行一次探测请求，成功则关闭，失败则重新打开
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public class CacheCircuitBreaker {
+
+	public enum State {
+		CLOSED, OPEN, HALF_OPEN
+	}
+
+	private final int failureThreshold;
+
+	private final long slowCallNanos;
+
+	private final long openDurationMillis;
+
+	private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+	private volatile long openedAt;
+
+	private final LongAdder failures = new LongAdder();
+
+	private final LongAdder rejected = new LongAdder();
+
+	private final LongAdder opened = new LongAdder();
+
+	/**
+	 * @param failureThreshold 连续失败次数阈值
+	 * @param slowCallMillis 慢调用阈值，耗时超过该值的成功调用也计为失败，小于等于0表示不启用
+	 * @param openDurationMillis 打开时长
+	 */
+	public CacheCircuitBreaker(int failureThreshold, long slowCallMillis, long openDurationMillis) {
+		this.failureThreshold = failureThreshold;
+		this.slowCallNanos = slowCallMillis > 0 ? slowCallMillis * 1_000_000 : Long.MAX_VALUE;
+		this.openDurationMillis = openDurationMillis;
+	}
+
+	/**
+	 * 是否放行本次请求，放行后必须调用onSuccess或onFailure
+	 * @return
+	 */
+	public boolean allowRequest() {
+		State current = state.get();
+		if (current == State.CLOSED) {
+			return true;
+		}
+		if (current == State.OPEN && System.currentTimeMillis() - openedAt >= openDurationMillis
+				&& state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+			return true;
+		}
+		rejected.increment();
+		return false;
+	}
+
+	public void onSuccess(long elapsedNanos) {
+		if (elapsedNanos > slowCallNanos) {
+			onFailure();
+			return;
+		}
+		consecutiveFailures.set(0);
+		if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+			log.info("Redis缓存熔断器关闭");
+		}
+	}
+
+	public void onFailure() {
+		failures.increment();
+		if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+			open();
+		}
+	}
+
+	private void open() {
+		State previous = state.getAndSet(State.OPEN);
+		openedAt = System.currentTimeMillis();
+		consecutiveFailures.set(0);
+		if (previous != State.OPEN) {
+			opened.increment();
+			log.warn("Redis缓存熔断器打开,{}ms内跳过缓存操作", openDurationMillis);
+		}
+	}
+
+	public State getState() {
+		return state.get();
+	}
+
+	/**
+	 * 失败(含慢调用)总次数
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * 因熔断被跳过的请求总数
+	 */
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+
+	/**
+	 * 熔断器打开总次数
+	 */
+	public long getOpenedCount() {
+		return opened.sum();
+	}
+}
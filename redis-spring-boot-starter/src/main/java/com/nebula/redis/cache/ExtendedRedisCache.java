@@ -0,0 +1,283 @@
+package com.nebula.redis.cache;
+
+import com.nebula.redis.service.RedisBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * @Description RedisCache扩展:布隆过滤器通过seedBloomFilter从数据源完整初始化后，读取前先查询过滤器，一定不存在的key不读Redis也不回源，
+ * 直接返回null(防止缓存穿透)，未初始化时不拦截；
+ * 空值可单独配置较短的过期时间(负缓存)；配置熔断器时，熔断打开期间跳过读写操作，删除操作仍然执行；
+ * 配置了key版本时，过渡期内当前版本未命中则读取上一版本的key，能按当前类型反序列化的值迁移到当前版本，过渡期结束后不再读取上一版本
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public class ExtendedRedisCache extends RedisCache {
+
+	private static final int SEED_BATCH_SIZE = 1000;
+
+	private final RedisBloomFilter bloomFilter;
+
+	private final Duration nullValueTtl;
+
+	private final CacheCircuitBreaker circuitBreaker;
+
+	/**
+	 * 上一版本的key前缀，为null表示未启用版本或过渡期已结束
+	 */
+	private volatile String previousKeyPrefix;
+
+	/**
+	 * 过渡期结束时间(毫秒时间戳)，此后上一版本的key已过期，不再回读
+	 */
+	private final long previousVersionDeadline;
+
+	/**
+	 * @param previousKeyPrefix 上一版本的key前缀，为null表示未启用版本
+	 * @param previousVersionDeadline 过渡期结束时间(毫秒时间戳)，小于等于0表示不限
+	 */
+	protected ExtendedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfig,
+								 RedisBloomFilter bloomFilter, Duration nullValueTtl, CacheCircuitBreaker circuitBreaker,
+								 String previousKeyPrefix, long previousVersionDeadline) {
+		super(name, cacheWriter, cacheConfig);
+		this.bloomFilter = bloomFilter;
+		this.nullValueTtl = nullValueTtl;
+		this.circuitBreaker = circuitBreaker;
+		this.previousKeyPrefix = previousKeyPrefix;
+		this.previousVersionDeadline = previousVersionDeadline;
+	}
+
+	@Override
+	protected Object lookup(Object key) {
+		return guarded(() -> {
+			Object value = super.lookup(key);
+			String previousPrefix = previousKeyPrefix();
+			if (value == null && previousPrefix != null) {
+				value = migrate(key, previousPrefix);
+			}
+			return value;
+		}, () -> null);
+	}
+
+	/**
+	 * 过滤器判定一定不存在时返回值为null的命中(允许空值时)，调用方不再回源
+	 */
+	@Override
+	public ValueWrapper get(Object key) {
+		if (isFilteredOut(key)) {
+			return isAllowNullValues() ? new SimpleValueWrapper(null) : null;
+		}
+		return super.get(key);
+	}
+
+	/**
+	 * 过滤器判定一定不存在时直接返回null，不调用valueLoader
+	 */
+	@Override
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		if (isFilteredOut(key)) {
+			return null;
+		}
+		return super.get(key, valueLoader);
+	}
+
+	/**
+	 * 从数据源初始化布隆过滤器:分批写入全部已存在的key后标记为已初始化，之后才按过滤器拦截读取；
+	 * 数据源新增数据时需同步写入过滤器(写入缓存的值会自动加入)，否则新数据会被判定为不存在
+	 * @param keys 数据源中全部的key，与缓存注解使用的key一致
+	 */
+	public void seedBloomFilter(Iterable<?> keys) {
+		if (bloomFilter == null) {
+			throw new IllegalStateException("bloom filter is not enabled for cache : " + getName());
+		}
+		List<String> batch = new ArrayList<>(SEED_BATCH_SIZE);
+		for (Object key : keys) {
+			batch.add(convertKey(key));
+			if (batch.size() >= SEED_BATCH_SIZE) {
+				bloomFilter.addAll(getName(), batch);
+				batch.clear();
+			}
+		}
+		bloomFilter.addAll(getName(), batch);
+		bloomFilter.markSeeded(getName());
+		log.info("Redis缓存布隆过滤器初始化完成,缓存队列名:{}", getName());
+	}
+
+	@Override
+	public void put(Object key, Object value) {
+		guarded(() -> {
+			if (isNullValue(value) && nullValueTtl != null) {
+				putNullValue(key);
+				return null;
+			}
+			super.put(key, value);
+			addToFilter(key, value);
+			return null;
+		}, () -> null);
+	}
+
+	@Override
+	public ValueWrapper putIfAbsent(Object key, Object value) {
+		return guarded(() -> {
+			if (isNullValue(value) && nullValueTtl != null) {
+				byte[] existing = getNativeCache().putIfAbsent(getName(), serializeCacheKey(createCacheKey(key)),
+						serializeCacheValue(NullValue.INSTANCE), nullValueTtl);
+				return existing == null ? null : new SimpleValueWrapper(fromStoreValue(deserializeCacheValue(existing)));
+			}
+			ValueWrapper wrapper = super.putIfAbsent(key, value);
+			addToFilter(key, value);
+			return wrapper;
+		}, () -> null);
+	}
+
+	@Override
+	public void evict(Object key) {
+		evicting(() -> {
+			super.evict(key);
+			String previousPrefix = previousKeyPrefix();
+			if (previousPrefix != null) {
+				getNativeCache().remove(getName(), previousCacheKey(key, previousPrefix));
+			}
+		});
+	}
+
+	@Override
+	public void clear() {
+		evicting(() -> {
+			super.clear();
+			String previousPrefix = previousKeyPrefix();
+			if (previousPrefix != null) {
+				getNativeCache().clean(getName(), serializeCacheKey(previousPrefix + "*"));
+			}
+		});
+	}
+
+	/**
+	 * 按模式删除缓存条目，如 user:* ，由缓存写入器的清理策略分批完成
+	 * @param keyPattern 不含缓存名前缀的key模式
+	 */
+	public void evictByPattern(String keyPattern) {
+		evicting(() -> {
+			getNativeCache().clean(getName(), serializeCacheKey(createCacheKey(keyPattern)));
+			String previousPrefix = previousKeyPrefix();
+			if (previousPrefix != null) {
+				getNativeCache().clean(getName(), serializeCacheKey(previousPrefix + keyPattern));
+			}
+		});
+	}
+
+	/**
+	 * 空值写入，使用单独的过期时间
+	 */
+	private void putNullValue(Object key) {
+		if (!isAllowNullValues()) {
+			super.put(key, null);
+			return;
+		}
+		getNativeCache().put(getName(), serializeCacheKey(createCacheKey(key)), serializeCacheValue(NullValue.INSTANCE), nullValueTtl);
+	}
+
+	/**
+	 * 读取上一版本的值，能按当前配置反序列化则写入当前版本并删除旧key，否则视为未命中；空值占位沿用空值过期时间
+	 */
+	private Object migrate(Object key, String previousPrefix) {
+		byte[] previousKey = previousCacheKey(key, previousPrefix);
+		byte[] raw = getNativeCache().get(getName(), previousKey);
+		if (raw == null) {
+			return null;
+		}
+		Object value;
+		try {
+			value = deserializeCacheValue(raw);
+		} catch (SerializationException e) {
+			log.debug("Redis缓存旧版本值无法反序列化,缓存队列名:{},key:{}", getName(), key, e);
+			return null;
+		}
+		Duration ttl = value instanceof NullValue && nullValueTtl != null ? nullValueTtl : getCacheConfiguration().getTtl();
+		getNativeCache().put(getName(), serializeCacheKey(createCacheKey(key)), raw, ttl);
+		getNativeCache().remove(getName(), previousKey);
+		return value;
+	}
+
+	/**
+	 * 过渡期结束后清空上一版本前缀，之后的未命中不再多一次读取
+	 */
+	private String previousKeyPrefix() {
+		String previousPrefix = previousKeyPrefix;
+		if (previousPrefix != null && previousVersionDeadline > 0 && System.currentTimeMillis() > previousVersionDeadline) {
+			previousKeyPrefix = null;
+			return null;
+		}
+		return previousPrefix;
+	}
+
+	private byte[] previousCacheKey(Object key, String previousPrefix) {
+		return serializeCacheKey(previousPrefix + convertKey(key));
+	}
+
+	private boolean isFilteredOut(Object key) {
+		return bloomFilter != null && guarded(() -> !bloomFilter.mightContainSeeded(getName(), convertKey(key)), () -> false);
+	}
+
+	/**
+	 * 删除操作不经过熔断判断：熔断期间跳过删除会让数据源已变更的旧值在Redis恢复后继续被读取，
+	 * 因此始终执行，失败时异常抛给调用方(CacheErrorHandler)，执行结果仍计入熔断器
+	 */
+	private void evicting(Runnable action) {
+		if (circuitBreaker == null) {
+			action.run();
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			action.run();
+			circuitBreaker.onSuccess(System.nanoTime() - start);
+		} catch (RuntimeException e) {
+			circuitBreaker.onFailure();
+			throw e;
+		}
+	}
+
+	/**
+	 * 经过熔断器执行Redis操作，熔断打开时直接返回fallback
+	 */
+	private <T> T guarded(Supplier<T> action, Supplier<T> fallback) {
+		if (circuitBreaker == null) {
+			return action.get();
+		}
+		if (!circuitBreaker.allowRequest()) {
+			return fallback.get();
+		}
+		long start = System.nanoTime();
+		try {
+			T result = action.get();
+			circuitBreaker.onSuccess(System.nanoTime() - start);
+			return result;
+		} catch (RuntimeException e) {
+			circuitBreaker.onFailure();
+			throw e;
+		}
+	}
+
+	private void addToFilter(Object key, Object value) {
+		if (bloomFilter != null && !isNullValue(value)) {
+			bloomFilter.add(getName(), convertKey(key));
+		}
+	}
+
+	private static boolean isNullValue(Object value) {
+		return value == null || value instanceof NullValue;
+	}
+}
@@ -0,0 +1,252 @@
+package com.nebula.redis.cache;
+
+import com.nebula.redis.service.RedisBloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * @Description RedisCacheManager扩展，按缓存名启用布隆过滤器和空值过期时间，所有缓存共用一个熔断器；
+ * 按缓存名配置key版本时前缀为 缓存名::v版本::，版本1的上一版本为不带版本的 缓存名::，创建缓存时在后台为上一版本的key设置较短的过期时间，
+ * 该时间(未设置时为缓存过期时间)过后缓存不再回读上一版本
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public class ExtendedRedisCacheManager extends RedisCacheManager implements DisposableBean {
+
+	private static final int SCAN_BATCH_SIZE = 1000;
+
+	private final RedisCacheWriter cacheWriter;
+
+	private final RedisCacheConfiguration defaultCacheConfiguration;
+
+	private RedisBloomFilter bloomFilter;
+
+	private Set<String> bloomFilterCacheNames = Collections.emptySet();
+
+	private Map<String, Duration> nullValueTtls = Collections.emptyMap();
+
+	private CacheCircuitBreaker circuitBreaker;
+
+	private Map<String, Integer> keyVersions = Collections.emptyMap();
+
+	private Duration previousVersionTtl;
+
+	private Supplier<Collection<RedisConnectionFactory>> connectionFactories;
+
+	private ExecutorService expireExecutor;
+
+	public ExtendedRedisCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration,
+									 Map<String, RedisCacheConfiguration> initialCacheConfigurations) {
+		super(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations);
+		this.cacheWriter = cacheWriter;
+		this.defaultCacheConfiguration = defaultCacheConfiguration;
+	}
+
+	@Override
+	protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
+		RedisCacheConfiguration config = cacheConfig != null ? cacheConfig : defaultCacheConfiguration;
+		Integer version = keyVersions.get(name);
+		String previousKeyPrefix = null;
+		long previousVersionDeadline = 0;
+		if (version != null && version > 0) {
+			String keyPrefix = versionedKeyPrefix(name, version);
+			config = config.computePrefixWith(cacheName -> keyPrefix);
+			previousKeyPrefix = versionedKeyPrefix(name, version - 1);
+			expirePreviousVersion(name, previousKeyPrefix, keyPrefix);
+			Duration window = previousVersionTtl != null ? previousVersionTtl : config.getTtl();
+			if (window != null && !window.isZero() && !window.isNegative()) {
+				previousVersionDeadline = System.currentTimeMillis() + window.toMillis();
+			}
+		}
+		return new ExtendedRedisCache(name, cacheWriter, config, bloomFilterCacheNames.contains(name) ? bloomFilter : null,
+				nullValueTtls.get(name), circuitBreaker, previousKeyPrefix, previousVersionDeadline);
+	}
+
+	/**
+	 * 版本大于0时为 缓存名::v版本::，否则为默认的 缓存名::
+	 */
+	public static String versionedKeyPrefix(String cacheName, int version) {
+		String prefix = CacheKeyPrefix.simple().compute(cacheName);
+		return version > 0 ? prefix + "v" + version + CacheKeyPrefix.SEPARATOR : prefix;
+	}
+
+	/**
+	 * 启用布隆过滤器的缓存，过滤器需通过seedBloomFilter从数据源初始化后才会拦截读取
+	 * @param bloomFilter
+	 * @param cacheNames
+	 */
+	public void setBloomFilter(RedisBloomFilter bloomFilter, Set<String> cacheNames) {
+		this.bloomFilter = bloomFilter;
+		this.bloomFilterCacheNames = cacheNames;
+	}
+
+	/**
+	 * 从数据源初始化指定缓存的布隆过滤器，见ExtendedRedisCache.seedBloomFilter
+	 * @param cacheName
+	 * @param keys 数据源中全部的key
+	 */
+	public void seedBloomFilter(String cacheName, Iterable<?> keys) {
+		if (!bloomFilterCacheNames.contains(cacheName)) {
+			throw new IllegalArgumentException("bloom filter is not enabled for cache : " + cacheName);
+		}
+		((ExtendedRedisCache) getCache(cacheName)).seedBloomFilter(keys);
+	}
+
+	/**
+	 * 空值过期时间，key为缓存名
+	 * @param nullValueTtls
+	 */
+	public void setNullValueTtls(Map<String, Duration> nullValueTtls) {
+		this.nullValueTtls = nullValueTtls;
+	}
+
+	/**
+	 * 缓存熔断器，为null时不熔断
+	 * @param circuitBreaker
+	 */
+	public void setCircuitBreaker(CacheCircuitBreaker circuitBreaker) {
+		this.circuitBreaker = circuitBreaker;
+	}
+
+	/**
+	 * 启用key版本，修改缓存值的类型结构时递增对应缓存的版本
+	 * @param keyVersions key为缓存名，value为版本
+	 * @param previousVersionTtl 上一版本key的最长剩余过期时间，为null时不处理旧key
+	 * @param connectionFactory
+	 */
+	public void setKeyVersions(Map<String, Integer> keyVersions, Duration previousVersionTtl, RedisConnectionFactory connectionFactory) {
+		setKeyVersions(keyVersions, previousVersionTtl,
+				connectionFactory == null ? null : () -> Collections.singletonList(connectionFactory));
+	}
+
+	/**
+	 * 启用key版本，旧版本key的过期处理在每个节点上分别SCAN，用于客户端分片
+	 * @param keyVersions key为缓存名，value为版本
+	 * @param previousVersionTtl 上一版本key的最长剩余过期时间，为null时不处理旧key
+	 * @param connectionFactories 执行时获取当前所有节点的连接工厂
+	 */
+	public void setKeyVersions(Map<String, Integer> keyVersions, Duration previousVersionTtl,
+							   Supplier<Collection<RedisConnectionFactory>> connectionFactories) {
+		this.keyVersions = keyVersions;
+		this.previousVersionTtl = previousVersionTtl;
+		this.connectionFactories = connectionFactories;
+	}
+
+	/**
+	 * 后台SCAN上一版本的key，没有过期时间或剩余过期时间超过previousVersionTtl的设置为previousVersionTtl，过渡期内仍可被读取迁移
+	 */
+	private synchronized void expirePreviousVersion(String name, String previousKeyPrefix, String keyPrefix) {
+		if (previousVersionTtl == null || connectionFactories == null) {
+			return;
+		}
+		if (expireExecutor == null) {
+			expireExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "redis-cache-version-expire");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		expireExecutor.execute(() -> {
+			try {
+				long count = 0;
+				for (RedisConnectionFactory connectionFactory : connectionFactories.get()) {
+					count += expireKeys(connectionFactory, previousKeyPrefix, keyPrefix.getBytes(StandardCharsets.UTF_8));
+				}
+				log.info("Redis缓存旧版本key过期设置完成,缓存队列名:{},旧前缀:{},key数:{}", name, previousKeyPrefix, count);
+			} catch (Exception e) {
+				log.error("Redis缓存旧版本key过期设置异常,缓存队列名:{}", name, e);
+			}
+		});
+	}
+
+	private long expireKeys(RedisConnectionFactory connectionFactory, String previousKeyPrefix, byte[] currentPrefix) {
+		long ttlMillis = previousVersionTtl.toMillis();
+		long count = 0;
+		RedisConnection scanConnection = connectionFactory.getConnection();
+		RedisConnection connection = connectionFactory.getConnection();
+		try (Cursor<byte[]> cursor = scanConnection.scan(ScanOptions.scanOptions()
+				.match(RedisCacheSnapshot.escapePattern(previousKeyPrefix) + "*").count(SCAN_BATCH_SIZE).build())) {
+			List<byte[]> keys = new ArrayList<>(SCAN_BATCH_SIZE);
+			while (cursor.hasNext()) {
+				byte[] key = cursor.next();
+				// 上一版本为不带版本的前缀时，会匹配到当前版本的key
+				if (!startsWith(key, currentPrefix)) {
+					keys.add(key);
+				}
+				if (keys.size() >= SCAN_BATCH_SIZE) {
+					count += expireBatch(connection, keys, ttlMillis);
+					keys.clear();
+				}
+			}
+			count += expireBatch(connection, keys, ttlMillis);
+		} finally {
+			connection.close();
+			scanConnection.close();
+		}
+		return count;
+	}
+
+	private static int expireBatch(RedisConnection connection, List<byte[]> keys, long ttlMillis) {
+		if (keys.isEmpty()) {
+			return 0;
+		}
+		connection.openPipeline();
+		for (byte[] key : keys) {
+			connection.keyCommands().pTtl(key);
+		}
+		List<Object> ttls = connection.closePipeline();
+		int expired = 0;
+		connection.openPipeline();
+		for (int i = 0; i < keys.size(); i++) {
+			Object ttl = ttls.get(i);
+			long pttl = ttl instanceof Number ? ((Number) ttl).longValue() : -2;
+			if (pttl == -1 || pttl > ttlMillis) {
+				connection.keyCommands().pExpire(keys.get(i), ttlMillis);
+				expired++;
+			}
+		}
+		connection.closePipeline();
+		return expired;
+	}
+
+	private static boolean startsWith(byte[] key, byte[] prefix) {
+		if (key.length < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (key[i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (expireExecutor != null) {
+			expireExecutor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package com.nebula.redis.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * @Description 缓存快照:按缓存名前缀(缓存名::)SCAN导出缓存条目及剩余过期时间到本地压缩文件，边扫描边写入不在内存中堆积；
+ * 导入时按批pipeline写回(仅写入不存在的key，不覆盖导出后已重新加载的值)并扣除导出后经过的时间，已过期的条目跳过；
+ * 导出导入均可限速，避免预热时压满Redis；客户端分片时导出逐个节点SCAN，导入按key所属节点分别pipeline写入
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public class RedisCacheSnapshot {
+
+	private static final int MAGIC = 0x52435331;
+
+	private static final int VERSION = 1;
+
+	private static final int END = -1;
+
+	private final Supplier<Collection<RedisConnectionFactory>> connectionFactories;
+
+	/**
+	 * key所属节点的连接工厂
+	 */
+	private final Function<byte[], RedisConnectionFactory> owner;
+
+	private final int batchSize;
+
+	/**
+	 * 每秒最多处理的条目数，小于等于0表示不限速
+	 */
+	private final long entriesPerSecond;
+
+	public RedisCacheSnapshot(RedisConnectionFactory connectionFactory, int batchSize, long entriesPerSecond) {
+		this(() -> Collections.singletonList(connectionFactory), key -> connectionFactory, batchSize, entriesPerSecond);
+	}
+
+	/**
+	 * @param connectionFactories 导出时获取当前所有节点的连接工厂
+	 * @param owner 导入时按key选择节点
+	 * @param batchSize
+	 * @param entriesPerSecond
+	 */
+	public RedisCacheSnapshot(Supplier<Collection<RedisConnectionFactory>> connectionFactories,
+							  Function<byte[], RedisConnectionFactory> owner, int batchSize, long entriesPerSecond) {
+		this.connectionFactories = connectionFactories;
+		this.owner = owner;
+		this.batchSize = Math.max(batchSize, 1);
+		this.entriesPerSecond = entriesPerSecond;
+	}
+
+	/**
+	 * 导出缓存到文件
+	 * @param file
+	 * @param cacheNames
+	 * @return 导出条目数
+	 */
+	public long export(Path file, Collection<String> cacheNames) throws IOException {
+		try (OutputStream out = Files.newOutputStream(file)) {
+			return export(out, cacheNames);
+		}
+	}
+
+	/**
+	 * 导出缓存到输出流，输出流由调用方关闭
+	 * @param out
+	 * @param cacheNames
+	 * @return 导出条目数
+	 */
+	public long export(OutputStream out, Collection<String> cacheNames) throws IOException {
+		long start = System.currentTimeMillis();
+		GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out, 64 * 1024));
+		DataOutputStream data = new DataOutputStream(gzip);
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeLong(start);
+		long count = 0;
+		for (RedisConnectionFactory connectionFactory : connectionFactories.get()) {
+			count = export(connectionFactory, cacheNames, data, count, start);
+		}
+		data.writeInt(END);
+		gzip.finish();
+		data.flush();
+		log.info("Redis缓存快照导出完成,缓存:{},条目数:{},耗时:{}ms", cacheNames, count, System.currentTimeMillis() - start);
+		return count;
+	}
+
+	private long export(RedisConnectionFactory connectionFactory, Collection<String> cacheNames, DataOutputStream data,
+						long count, long start) throws IOException {
+		RedisConnection scanConnection = connectionFactory.getConnection();
+		RedisConnection readConnection = connectionFactory.getConnection();
+		try {
+			for (String cacheName : cacheNames) {
+				String pattern = escapePattern(CacheKeyPrefix.simple().compute(cacheName)) + "*";
+				try (Cursor<byte[]> cursor = scanConnection.scan(ScanOptions.scanOptions().match(pattern).count(batchSize).build())) {
+					List<byte[]> keys = new ArrayList<>(batchSize);
+					while (cursor.hasNext()) {
+						keys.add(cursor.next());
+						if (keys.size() >= batchSize) {
+							count += writeBatch(readConnection, keys, data);
+							keys.clear();
+							throttle(count, start);
+						}
+					}
+					count += writeBatch(readConnection, keys, data);
+				}
+			}
+		} finally {
+			readConnection.close();
+			scanConnection.close();
+		}
+		return count;
+	}
+
+	/**
+	 * 从文件导入缓存
+	 * @param file
+	 * @return 导入条目数
+	 */
+	public long load(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return load(in);
+		}
+	}
+
+	/**
+	 * 从输入流导入缓存，输入流由调用方关闭
+	 * @param in
+	 * @return 写入的条目数(不含已过期跳过的条目和已存在的key)
+	 */
+	public long load(InputStream in) throws IOException {
+		long start = System.currentTimeMillis();
+		DataInputStream data = new DataInputStream(new GZIPInputStream(new BufferedInputStream(in, 64 * 1024)));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a redis cache snapshot");
+		}
+		int version = data.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported redis cache snapshot version: " + version);
+		}
+		long exportedAt = data.readLong();
+		long count = 0;
+		long written = 0;
+		long skipped = 0;
+		Map<RedisConnectionFactory, Pipeline> pipelines = new LinkedHashMap<>();
+		try {
+			int keyLength;
+			while ((keyLength = data.readInt()) != END) {
+				byte[] key = readBytes(data, keyLength);
+				long ttl = data.readLong();
+				byte[] value = readBytes(data, data.readInt());
+				Expiration expiration = Expiration.persistent();
+				if (ttl > 0) {
+					long remaining = ttl - (System.currentTimeMillis() - exportedAt);
+					if (remaining <= 0) {
+						skipped++;
+						continue;
+					}
+					expiration = Expiration.milliseconds(remaining);
+				}
+				Pipeline pipeline = pipelines.computeIfAbsent(owner.apply(key), factory -> new Pipeline(factory.getConnection()));
+				pipeline.connection.stringCommands().set(key, value, expiration, RedisStringCommands.SetOption.ifAbsent());
+				count++;
+				if (++pipeline.pending >= batchSize) {
+					written += pipeline.flush();
+					throttle(count, start);
+				}
+			}
+			for (Pipeline pipeline : pipelines.values()) {
+				written += pipeline.flush();
+			}
+		} finally {
+			for (Pipeline pipeline : pipelines.values()) {
+				pipeline.close();
+			}
+		}
+		log.info("Redis缓存快照导入完成,条目数:{},写入:{},已存在跳过:{},过期跳过:{},耗时:{}ms",
+				count + skipped, written, count - written, skipped, System.currentTimeMillis() - start);
+		return written;
+	}
+
+	/**
+	 * 单个节点上的导入pipeline，写满batchSize条后提交
+	 */
+	private static class Pipeline {
+		private final RedisConnection connection;
+		private int pending;
+
+		private Pipeline(RedisConnection connection) {
+			this.connection = connection;
+			connection.openPipeline();
+		}
+
+		private long flush() {
+			long written = countWritten(connection.closePipeline());
+			pending = 0;
+			connection.openPipeline();
+			return written;
+		}
+
+		private void close() {
+			if (connection.isPipelined()) {
+				connection.closePipeline();
+			}
+			connection.close();
+		}
+	}
+
+	private static long countWritten(List<Object> results) {
+		long written = 0;
+		for (Object result : results) {
+			if (Boolean.TRUE.equals(result)) {
+				written++;
+			}
+		}
+		return written;
+	}
+
+	private int writeBatch(RedisConnection connection, List<byte[]> keys, DataOutputStream data) throws IOException {
+		if (keys.isEmpty()) {
+			return 0;
+		}
+		connection.openPipeline();
+		for (byte[] key : keys) {
+			connection.stringCommands().get(key);
+			connection.keyCommands().pTtl(key);
+		}
+		List<Object> results;
+		try {
+			results = connection.closePipeline();
+		} catch (RedisPipelineException e) {
+			// 非字符串类型的key返回WRONGTYPE，对应位置为异常，其余结果仍可使用
+			results = e.getPipelineResult();
+		}
+		int written = 0;
+		for (int i = 0; i < keys.size(); i++) {
+			Object value = results.get(i * 2);
+			Object ttl = results.get(i * 2 + 1);
+			long pttl = ttl instanceof Number ? ((Number) ttl).longValue() : -1;
+			// 非字符串类型(WRONGTYPE)或已过期删除的key跳过
+			if (!(value instanceof byte[]) || pttl == -2) {
+				continue;
+			}
+			byte[] key = keys.get(i);
+			data.writeInt(key.length);
+			data.write(key);
+			data.writeLong(pttl);
+			data.writeInt(((byte[]) value).length);
+			data.write((byte[]) value);
+			written++;
+		}
+		return written;
+	}
+
+	/**
+	 * 按已处理条目数与期望速率计算应耗时间，处理过快时休眠
+	 */
+	private void throttle(long processed, long start) {
+		if (entriesPerSecond <= 0) {
+			return;
+		}
+		long expectedMillis = processed * 1000 / entriesPerSecond;
+		long sleepMillis = expectedMillis - (System.currentTimeMillis() - start);
+		if (sleepMillis > 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(sleepMillis);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Redis缓存快照处理被中断", e);
+			}
+		}
+	}
+
+	private static byte[] readBytes(DataInputStream data, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		data.readFully(bytes);
+		return bytes;
+	}
+
+	static String escapePattern(String prefix) {
+		StringBuilder sb = new StringBuilder(prefix.length() + 8);
+		for (char c : prefix.toCharArray()) {
+			if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+				sb.append('\\');
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,48 @@
+package com.nebula.redis.cache;
+
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description 缓存清理策略:SCAN分批匹配key并用UNLINK删除(值的释放在Redis后台线程完成)，替代默认的KEYS，大缓存清理时不阻塞Redis
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class ScanUnlinkBatchStrategy implements BatchStrategy {
+
+	private final int batchSize;
+
+	public ScanUnlinkBatchStrategy(int batchSize) {
+		this.batchSize = Math.max(batchSize, 1);
+	}
+
+	@Override
+	public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+		long count = 0;
+		try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().count(batchSize).match(pattern).build())) {
+			List<byte[]> keys = new ArrayList<>(batchSize);
+			while (cursor.hasNext()) {
+				keys.add(cursor.next());
+				if (keys.size() >= batchSize) {
+					count += unlink(connection, keys);
+					keys.clear();
+				}
+			}
+			count += unlink(connection, keys);
+		}
+		return count;
+	}
+
+	private static long unlink(RedisConnection connection, List<byte[]> keys) {
+		if (keys.isEmpty()) {
+			return 0;
+		}
+		Long unlinked = connection.keyCommands().unlink(keys.toArray(new byte[0][]));
+		return unlinked == null ? 0 : unlinked;
+	}
+}
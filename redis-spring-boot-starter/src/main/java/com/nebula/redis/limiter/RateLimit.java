@@ -0,0 +1,55 @@
+package com.nebula.redis.limiter;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @Description 方法级限流注解，未获取到许可时抛出RateLimitException
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 限流key，支持SpEL(以#开头，如#userId)，为空时使用类名:方法名
+     */
+    String key() default "";
+
+    RedisRateLimiter.Algorithm algorithm() default RedisRateLimiter.Algorithm.TOKEN_BUCKET;
+
+    /**
+     * 每次调用申请的许可数
+     */
+    long permits() default 1;
+
+    /**
+     * 令牌桶:每秒产生令牌数，必须大于0
+     */
+    double rate() default 10;
+
+    /**
+     * 令牌桶:桶容量，必须大于0
+     */
+    long capacity() default 10;
+
+    /**
+     * 令牌桶:本地预取令牌数，大于0时开启本地预分配
+     */
+    long leaseSize() default 0;
+
+    /**
+     * 滑动窗口:窗口内最大请求数
+     */
+    long limit() default 10;
+
+    /**
+     * 滑动窗口:窗口大小(毫秒)，必须大于0
+     */
+    long windowMillis() default 1000;
+}
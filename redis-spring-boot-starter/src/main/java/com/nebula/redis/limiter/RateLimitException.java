@@ -0,0 +1,20 @@
+package com.nebula.redis.limiter;
+
+/**
+ * @Description 限流异常
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RateLimitException extends RuntimeException {
+
+    private final String key;
+
+    public RateLimitException(String key) {
+        super("rate limit exceeded, key : " + key);
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+}
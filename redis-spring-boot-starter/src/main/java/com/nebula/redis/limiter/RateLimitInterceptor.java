@@ -0,0 +1,70 @@
+package com.nebula.redis.limiter;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.expression.MethodBasedEvaluationContext;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.StringUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description @RateLimit注解拦截器
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RateLimitInterceptor implements MethodInterceptor {
+
+    private final static String separator = ":";
+
+    private final RedisRateLimiter rateLimiter;
+
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+
+    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+    private final ConcurrentMap<String, Expression> expressions = new ConcurrentHashMap<>();
+
+    public RateLimitInterceptor(RedisRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (invocation.getThis() != null) {
+            method = AopUtils.getMostSpecificMethod(method, invocation.getThis().getClass());
+        }
+        RateLimit rateLimit = AnnotationUtils.findAnnotation(method, RateLimit.class);
+        if (rateLimit == null) {
+            return invocation.proceed();
+        }
+        String key = resolveKey(rateLimit, method, invocation);
+        if (!rateLimiter.tryAcquire(key, rateLimit)) {
+            throw new RateLimitException(key);
+        }
+        return invocation.proceed();
+    }
+
+    private String resolveKey(RateLimit rateLimit, Method method, MethodInvocation invocation) {
+        String prefix = method.getDeclaringClass().getName() + separator + method.getName();
+        String key = rateLimit.key();
+        if (!StringUtils.hasText(key)) {
+            return prefix;
+        }
+        if (!key.startsWith("#")) {
+            return key;
+        }
+        Expression expression = expressions.computeIfAbsent(key, parser::parseExpression);
+        MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(invocation.getThis(), method,
+                invocation.getArguments(), parameterNameDiscoverer);
+        return prefix + separator + expression.getValue(context, String.class);
+    }
+}
@@ -0,0 +1,290 @@
+package com.nebula.redis.limiter;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description 分布式限流器，令牌桶、滑动窗口日志、滑动窗口计数三种算法均以单个Lua脚本原子执行(一次网络往返)，
+ * 时间统一取Redis服务端时间，避免各节点时钟偏差
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisRateLimiter {
+
+    public enum Algorithm {
+        /**
+         * 令牌桶，允许capacity大小的突发流量
+         */
+        TOKEN_BUCKET,
+        /**
+         * 滑动窗口日志，精确但每个请求占用一个zset元素
+         */
+        SLIDING_WINDOW_LOG,
+        /**
+         * 滑动窗口计数，以前一个固定窗口按比例加权估算，内存占用固定
+         */
+        SLIDING_WINDOW_COUNTER
+    }
+
+    private static final String SERVER_TIME =
+            "if redis.replicate_commands then redis.replicate_commands() end " +
+            "local t = redis.call('TIME') " +
+            "local now = tonumber(t[1]) * 1000 + math.floor(tonumber(t[2]) / 1000) ";
+
+    /**
+     * ARGV: 每秒产生令牌数, 桶容量, 申请令牌数, 令牌不足时是否返回剩余的全部令牌(1/0)
+     * 返回实际获得的令牌数
+     */
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(SERVER_TIME +
+            "local rate = tonumber(ARGV[1]) " +
+            "local capacity = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(state[1]) " +
+            "local ts = tonumber(state[2]) " +
+            "if tokens == nil or ts == nil then tokens = capacity ts = now end " +
+            "if now > ts then tokens = math.min(capacity, tokens + (now - ts) * rate / 1000) ts = now end " +
+            "local granted = 0 " +
+            "if tokens >= requested then granted = requested " +
+            "elseif ARGV[4] == '1' then granted = math.floor(tokens) end " +
+            "tokens = tokens - granted " +
+            "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts)) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) " +
+            "return granted", Long.class);
+
+    /**
+     * ARGV: 窗口内最大请求数, 窗口大小(毫秒), 申请数
+     */
+    private static final RedisScript<Long> SLIDING_LOG_SCRIPT = new DefaultRedisScript<>(SERVER_TIME +
+            "local limit = tonumber(ARGV[1]) " +
+            "local window = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - window) " +
+            "local count = redis.call('ZCARD', KEYS[1]) " +
+            "if count + requested > limit then return 0 end " +
+            "for i = 1, requested do " +
+            "  redis.call('ZADD', KEYS[1], now, t[1] .. t[2] .. '-' .. count .. '-' .. i) " +
+            "end " +
+            "redis.call('PEXPIRE', KEYS[1], window) " +
+            "return requested", Long.class);
+
+    /**
+     * ARGV: 窗口内最大请求数, 窗口大小(毫秒), 申请数。以hash保存当前和上一个固定窗口的计数
+     */
+    private static final RedisScript<Long> SLIDING_COUNTER_SCRIPT = new DefaultRedisScript<>(SERVER_TIME +
+            "local limit = tonumber(ARGV[1]) " +
+            "local window = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "local current = math.floor(now / window) " +
+            "local counts = redis.call('HMGET', KEYS[1], tostring(current), tostring(current - 1)) " +
+            "local cur = tonumber(counts[1]) or 0 " +
+            "local prev = tonumber(counts[2]) or 0 " +
+            "local weight = 1 - (now - current * window) / window " +
+            "if prev * weight + cur + requested > limit then return 0 end " +
+            "redis.call('HINCRBY', KEYS[1], tostring(current), requested) " +
+            "redis.call('HDEL', KEYS[1], tostring(current - 2)) " +
+            "redis.call('PEXPIRE', KEYS[1], window * 2) " +
+            "return requested", Long.class);
+
+    private static final StringRedisSerializer ARGS_SERIALIZER = new StringRedisSerializer();
+
+    private static final GenericToStringSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String keyPrefix;
+
+    /**
+     * 本地预分配的令牌，超过leaseExpireMillis未用完的令牌作废，防止长时间囤积导致超发
+     */
+    private final ConcurrentMap<String, Lease> leases = new ConcurrentHashMap<>();
+
+    private long leaseExpireMillis = 1000;
+
+    /**
+     * 上次清理过期本地令牌的时间，限流key含用户id等时防止leases无限增长
+     */
+    private final AtomicLong lastSweep = new AtomicLong();
+
+    public RedisRateLimiter(RedisTemplate<String, Object> redisTemplate, String keyPrefix) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+    }
+
+    /**
+     * 令牌桶获取令牌
+     * @param key 限流key
+     * @param permits 申请令牌数，必须大于0且不超过capacity
+     * @param rate 每秒产生令牌数，必须大于0
+     * @param capacity 桶容量，必须大于0
+     * @return
+     */
+    public boolean tryAcquire(String key, long permits, double rate, long capacity) {
+        checkTokenBucket(permits, rate, capacity);
+        return tokenBucket(key, permits, rate, capacity, false) >= permits;
+    }
+
+    /**
+     * 令牌桶获取令牌，每次从Redis批量预取leaseSize个令牌在本地消耗，适合极高频的限流key，
+     * 代价是各节点之间的令牌分配不完全均匀
+     * @param key
+     * @param permits 申请令牌数，必须大于0且不超过capacity
+     * @param rate
+     * @param capacity
+     * @param leaseSize 每次预取的令牌数
+     * @return
+     */
+    public boolean tryAcquireLeased(String key, long permits, double rate, long capacity, long leaseSize) {
+        checkTokenBucket(permits, rate, capacity);
+        if (leaseSize <= permits) {
+            return tokenBucket(key, permits, rate, capacity, false) >= permits;
+        }
+        long now = System.currentTimeMillis();
+        sweepExpiredLeases(now);
+        while (true) {
+            Lease lease = leases.computeIfAbsent(key, k -> new Lease());
+            synchronized (lease) {
+                if (lease.retired) {
+                    continue;
+                }
+                if (now - lease.leasedAt > leaseExpireMillis) {
+                    lease.remaining = 0;
+                }
+                if (lease.remaining < permits) {
+                    lease.remaining += tokenBucket(key, leaseSize, rate, capacity, true);
+                    lease.leasedAt = now;
+                }
+                if (lease.remaining < permits) {
+                    return false;
+                }
+                lease.remaining -= permits;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 滑动窗口日志限流
+     * @param key
+     * @param permits 申请数，必须大于0且不超过limit
+     * @param limit 窗口内最大请求数
+     * @param windowMillis 窗口大小(毫秒)，必须大于0
+     * @return
+     */
+    public boolean tryAcquireSlidingLog(String key, long permits, long limit, long windowMillis) {
+        checkWindow(permits, limit, windowMillis);
+        return execute(SLIDING_LOG_SCRIPT, key, limit, windowMillis, permits) >= permits;
+    }
+
+    /**
+     * 滑动窗口计数限流
+     * @param key
+     * @param permits 申请数，必须大于0且不超过limit
+     * @param limit 窗口内最大请求数
+     * @param windowMillis 窗口大小(毫秒)，必须大于0
+     * @return
+     */
+    public boolean tryAcquireSlidingCounter(String key, long permits, long limit, long windowMillis) {
+        checkWindow(permits, limit, windowMillis);
+        return execute(SLIDING_COUNTER_SCRIPT, key, limit, windowMillis, permits) >= permits;
+    }
+
+    /**
+     * 按注解配置获取许可
+     * @param key
+     * @param rateLimit
+     * @return
+     */
+    public boolean tryAcquire(String key, RateLimit rateLimit) {
+        switch (rateLimit.algorithm()) {
+            case SLIDING_WINDOW_LOG:
+                return tryAcquireSlidingLog(key, rateLimit.permits(), rateLimit.limit(), rateLimit.windowMillis());
+            case SLIDING_WINDOW_COUNTER:
+                return tryAcquireSlidingCounter(key, rateLimit.permits(), rateLimit.limit(), rateLimit.windowMillis());
+            default:
+                if (rateLimit.leaseSize() > 0) {
+                    return tryAcquireLeased(key, rateLimit.permits(), rateLimit.rate(), rateLimit.capacity(), rateLimit.leaseSize());
+                }
+                return tryAcquire(key, rateLimit.permits(), rateLimit.rate(), rateLimit.capacity());
+        }
+    }
+
+    /**
+     * 每隔leaseExpireMillis清理一次过期的本地令牌，过期令牌本就会作废，移除不影响限流结果
+     */
+    private void sweepExpiredLeases(long now) {
+        long last = lastSweep.get();
+        if (now - last < leaseExpireMillis || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        leases.forEach((key, lease) -> {
+            synchronized (lease) {
+                if (now - lease.leasedAt > leaseExpireMillis) {
+                    lease.retired = true;
+                    leases.remove(key, lease);
+                }
+            }
+        });
+    }
+
+    /**
+     * 负数令牌会让脚本反向填充令牌桶，超过容量的申请永远不可能成功，均直接拒绝
+     */
+    private static void checkTokenBucket(long permits, double rate, long capacity) {
+        if (!(rate > 0) || capacity <= 0) {
+            throw new IllegalArgumentException("rate and capacity must be positive, rate : " + rate + ", capacity : " + capacity);
+        }
+        checkPermits(permits, capacity);
+    }
+
+    /**
+     * 窗口脚本对permits &lt;= 0的申请总是放行，超过limit的申请永远不可能成功，均直接拒绝
+     */
+    private static void checkWindow(long permits, long limit, long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive : " + windowMillis);
+        }
+        checkPermits(permits, limit);
+    }
+
+    private static void checkPermits(long permits, long max) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("permits must be positive : " + permits);
+        }
+        if (permits > max) {
+            throw new IllegalArgumentException("permits " + permits + " exceeds the maximum " + max);
+        }
+    }
+
+    private long tokenBucket(String key, long permits, double rate, long capacity, boolean partial) {
+        return execute(TOKEN_BUCKET_SCRIPT, key, rate, capacity, permits, partial ? 1 : 0);
+    }
+
+    private long execute(RedisScript<Long> script, String key, Object... args) {
+        String[] stringArgs = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            stringArgs[i] = String.valueOf(args[i]);
+        }
+        Long result = redisTemplate.execute(script, ARGS_SERIALIZER, RESULT_SERIALIZER,
+                Collections.singletonList(keyPrefix + key), (Object[]) stringArgs);
+        return result == null ? 0 : result;
+    }
+
+    public void setLeaseExpireMillis(long leaseExpireMillis) {
+        this.leaseExpireMillis = leaseExpireMillis;
+    }
+
+    private static class Lease {
+        private long remaining;
+        private long leasedAt;
+        private boolean retired;
+    }
+}
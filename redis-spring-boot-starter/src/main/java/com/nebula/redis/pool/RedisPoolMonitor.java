@@ -0,0 +1,104 @@
+package com.nebula.redis.pool;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Description 连接池使用情况监控，Lettuce(LettucePoolingConnectionProvider)与Jedis(JedisConnectionFactory)均未公开内部连接池，
+ * 此处通过反射定位commons-pool2的GenericObjectPool并读取活跃数、空闲数、等待数及借用等待时间
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public class RedisPoolMonitor {
+
+	private static final int MAX_DEPTH = 4;
+
+	private final RedisConnectionFactory connectionFactory;
+
+	public RedisPoolMonitor(RedisConnectionFactory connectionFactory) {
+		this.connectionFactory = connectionFactory;
+	}
+
+	@Data
+	@AllArgsConstructor
+	public static class PoolStats {
+		private String name;
+		private int active;
+		private int idle;
+		private int waiters;
+		private int maxTotal;
+		private long meanBorrowWaitMillis;
+		private long maxBorrowWaitMillis;
+		private long createdCount;
+	}
+
+	/**
+	 * 获取当前所有连接池的统计快照，未开启连接池时返回空列表
+	 * @return
+	 */
+	public List<PoolStats> snapshot() {
+		List<GenericObjectPool<?>> pools = new ArrayList<>();
+		try {
+			collectPools(connectionFactory, 0, pools, Collections.newSetFromMap(new IdentityHashMap<>()));
+		} catch (Exception e) {
+			log.warn("读取Redis连接池信息异常,connectionFactory:{}", connectionFactory.getClass().getName(), e);
+		}
+		List<PoolStats> stats = new ArrayList<>(pools.size());
+		for (GenericObjectPool<?> pool : pools) {
+			stats.add(new PoolStats(pool.getJmxName() != null ? pool.getJmxName().toString() : "pool-" + stats.size(),
+					pool.getNumActive(), pool.getNumIdle(), pool.getNumWaiters(), pool.getMaxTotal(),
+					pool.getMeanBorrowWaitTimeMillis(), pool.getMaxBorrowWaitTimeMillis(), pool.getCreatedCount()));
+		}
+		return stats;
+	}
+
+	private static void collectPools(Object target, int depth, List<GenericObjectPool<?>> pools, Set<Object> visited) throws IllegalAccessException {
+		if (target == null || depth > MAX_DEPTH || !visited.add(target)) {
+			return;
+		}
+		if (target instanceof GenericObjectPool) {
+			pools.add((GenericObjectPool<?>) target);
+			return;
+		}
+		if (target instanceof Map) {
+			for (Object value : ((Map<?, ?>) target).values()) {
+				collectPools(value, depth + 1, pools, visited);
+			}
+			return;
+		}
+		if (!isRedisClass(target.getClass())) {
+			return;
+		}
+		for (Class<?> type = target.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+					continue;
+				}
+				try {
+					field.setAccessible(true);
+				} catch (RuntimeException e) {
+					continue;
+				}
+				collectPools(field.get(target), depth + 1, pools, visited);
+			}
+		}
+	}
+
+	private static boolean isRedisClass(Class<?> type) {
+		String name = type.getName();
+		return name.startsWith("org.springframework.data.redis.connection") || name.startsWith("redis.clients");
+	}
+}
@@ -0,0 +1,109 @@
+package com.nebula.redis.pool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.util.CollectionUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Description 启动预热:同时占用并校验指定数量的连接使连接池达到min-idle，再批量读取配置的热点key以预热反序列化。
+ * 以ApplicationRunner同步执行，Spring Boot在所有Runner执行完成后才将就绪状态置为ACCEPTING_TRAFFIC，因此预热完成前不会接收流量
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public class RedisPoolWarmer implements ApplicationRunner, Ordered {
+
+	private final RedisConnectionFactory connectionFactory;
+
+	private final RedisTemplate<String, Object> redisTemplate;
+
+	private final RedisPoolMonitor poolMonitor;
+
+	private final int connections;
+
+	private final List<String> keys;
+
+	private final boolean failFast;
+
+	private volatile boolean warmedUp = false;
+
+	public RedisPoolWarmer(RedisConnectionFactory connectionFactory, RedisTemplate<String, Object> redisTemplate,
+						   RedisPoolMonitor poolMonitor, int connections, List<String> keys, boolean failFast) {
+		this.connectionFactory = connectionFactory;
+		this.redisTemplate = redisTemplate;
+		this.poolMonitor = poolMonitor;
+		this.connections = connections;
+		this.keys = keys;
+		this.failFast = failFast;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		long start = System.currentTimeMillis();
+		try {
+			warmUpConnections();
+			warmUpKeys();
+			warmedUp = true;
+			log.info("Redis预热完成,连接数:{},预热key数:{},耗时:{}ms,连接池:{}", connections,
+					keys == null ? 0 : keys.size(), System.currentTimeMillis() - start, poolMonitor.snapshot());
+		} catch (RuntimeException e) {
+			if (failFast) {
+				throw e;
+			}
+			log.error("Redis预热异常,耗时:{}ms", System.currentTimeMillis() - start, e);
+		}
+	}
+
+	/**
+	 * 同时持有connections个连接，每个连接以pipeline方式执行PING。
+	 * Lettuce默认共享一个原生连接，pipeline会强制从连接池借用独占连接，从而真正创建池内连接
+	 */
+	private void warmUpConnections() {
+		int count = Math.max(connections, 1);
+		List<RedisConnection> opened = new ArrayList<>(count);
+		try {
+			for (int i = 0; i < count; i++) {
+				RedisConnection connection = connectionFactory.getConnection();
+				opened.add(connection);
+				connection.openPipeline();
+				connection.ping();
+				List<Object> results = connection.closePipeline();
+				if (results.isEmpty() || !"PONG".equals(results.get(0))) {
+					throw new IllegalStateException("Redis连接校验失败,PING返回:" + results);
+				}
+			}
+		} finally {
+			for (RedisConnection connection : opened) {
+				try {
+					connection.close();
+				} catch (RuntimeException e) {
+					log.warn("Redis预热连接关闭异常", e);
+				}
+			}
+		}
+	}
+
+	private void warmUpKeys() {
+		if (CollectionUtils.isEmpty(keys)) {
+			return;
+		}
+		redisTemplate.opsForValue().multiGet(keys);
+	}
+
+	public boolean isWarmedUp() {
+		return warmedUp;
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+}
@@ -0,0 +1,41 @@
+package com.nebula.redis.serializer;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+
+/**
+ * @Description 为ObjectMapper注册字节码生成的属性访问器:Java 11+且classpath存在jackson-module-blackbird时使用Blackbird，
+ * 否则使用Afterburner(Afterburner无法优化private字段，这类字段仍走反射)
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+@Slf4j
+public final class AccessorModules {
+
+	private static final String BLACKBIRD_MODULE = "com.fasterxml.jackson.module.blackbird.BlackbirdModule";
+
+	private AccessorModules() {
+	}
+
+	public static ObjectMapper register(ObjectMapper objectMapper) {
+		ClassLoader classLoader = AccessorModules.class.getClassLoader();
+		if (isJava11OrLater() && ClassUtils.isPresent(BLACKBIRD_MODULE, classLoader)) {
+			try {
+				Module blackbird = (Module) BeanUtils.instantiateClass(ClassUtils.forName(BLACKBIRD_MODULE, classLoader));
+				return objectMapper.registerModule(blackbird);
+			} catch (Exception e) {
+				log.warn("注册BlackbirdModule失败,使用AfterburnerModule", e);
+			}
+		}
+		return objectMapper.registerModule(new AfterburnerModule());
+	}
+
+	private static boolean isJava11OrLater() {
+		String version = System.getProperty("java.specification.version", "1.8");
+		return !version.startsWith("1.") && !"9".equals(version) && !"10".equals(version);
+	}
+}
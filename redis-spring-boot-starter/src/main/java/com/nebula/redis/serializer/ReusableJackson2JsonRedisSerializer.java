@@ -0,0 +1,50 @@
+package com.nebula.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * @Description 与Jackson2JsonRedisSerializer&lt;Object&gt;输出格式一致的序列化器，预先构建ObjectReader/ObjectWriter并复用线程级输出缓冲
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class ReusableJackson2JsonRedisSerializer implements RedisSerializer<Object> {
+
+	private static final byte[] EMPTY_ARRAY = new byte[0];
+
+	private final ObjectReader reader;
+
+	private final ObjectWriter writer;
+
+	public ReusableJackson2JsonRedisSerializer(ObjectMapper objectMapper) {
+		this.reader = objectMapper.readerFor(Object.class);
+		this.writer = objectMapper.writer();
+	}
+
+	@Override
+	public byte[] serialize(Object value) throws SerializationException {
+		if (value == null) {
+			return EMPTY_ARRAY;
+		}
+		try {
+			return SerializerBuffers.write(writer, value);
+		} catch (Exception e) {
+			throw new SerializationException("Could not write JSON: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		if (bytes == null || bytes.length == 0) {
+			return null;
+		}
+		try {
+			return reader.readValue(bytes);
+		} catch (Exception e) {
+			throw new SerializationException("Could not read JSON: " + e.getMessage(), e);
+		}
+	}
+}
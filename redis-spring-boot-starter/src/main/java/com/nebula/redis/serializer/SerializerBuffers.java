@@ -0,0 +1,38 @@
+package com.nebula.redis.serializer;
+
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+
+/**
+ * @Description 序列化输出缓冲复用，每个线程复用一个ByteArrayBuilder，避免每次序列化分配并扩容输出缓冲，
+ * 超过MAX_RETAINED_SIZE的大报文使用完后丢弃，防止线程长期持有大块内存
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+final class SerializerBuffers {
+
+	private static final int INITIAL_SIZE = 512;
+
+	private static final int MAX_RETAINED_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<ByteArrayBuilder> BUFFERS = ThreadLocal.withInitial(() -> new ByteArrayBuilder(INITIAL_SIZE));
+
+	private SerializerBuffers() {
+	}
+
+	static byte[] write(ObjectWriter writer, Object value) throws IOException {
+		ByteArrayBuilder buffer = BUFFERS.get();
+		try {
+			writer.writeValue(buffer, value);
+			return buffer.toByteArray();
+		} finally {
+			if (buffer.size() > MAX_RETAINED_SIZE) {
+				BUFFERS.remove();
+			} else {
+				buffer.reset();
+			}
+		}
+	}
+}
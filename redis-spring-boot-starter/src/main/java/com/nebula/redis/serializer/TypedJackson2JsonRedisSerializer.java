@@ -0,0 +1,82 @@
+package com.nebula.redis.serializer;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * @Description 单一类型的Jackson序列化器，不写入类型信息，预先构建该类型的ObjectReader/ObjectWriter，
+ * 适用于值类型固定的缓存，相比默认的多态序列化报文更小、反序列化更快。
+ * 缓存空值NullValue不属于该类型，写为固定标记NULL_VALUE（单个0字节，不可能是合法的JSON），读取时还原为NullValue
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class TypedJackson2JsonRedisSerializer implements RedisSerializer<Object> {
+
+	private static final byte[] EMPTY_ARRAY = new byte[0];
+
+	static final byte[] NULL_VALUE = {0};
+
+	private final JavaType javaType;
+
+	private final ObjectReader reader;
+
+	private final ObjectWriter writer;
+
+	public TypedJackson2JsonRedisSerializer(ObjectMapper objectMapper, JavaType javaType) {
+		this.javaType = javaType;
+		this.reader = objectMapper.readerFor(javaType);
+		this.writer = objectMapper.writerFor(javaType);
+	}
+
+	/**
+	 * 根据类型描述创建，支持泛型，如 com.example.UserDTO、java.util.List&lt;com.example.UserDTO&gt;
+	 * @param objectMapper
+	 * @param canonicalType
+	 * @return
+	 */
+	public static TypedJackson2JsonRedisSerializer of(ObjectMapper objectMapper, String canonicalType) {
+		return new TypedJackson2JsonRedisSerializer(objectMapper,
+				objectMapper.getTypeFactory().constructFromCanonical(canonicalType.trim()));
+	}
+
+	@Override
+	public byte[] serialize(Object value) throws SerializationException {
+		if (value == null) {
+			return EMPTY_ARRAY;
+		}
+		if (value instanceof NullValue) {
+			return NULL_VALUE.clone();
+		}
+		try {
+			return SerializerBuffers.write(writer, value);
+		} catch (Exception e) {
+			throw new SerializationException("Could not write JSON: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		if (bytes == null || bytes.length == 0) {
+			return null;
+		}
+		if (Arrays.equals(bytes, NULL_VALUE)) {
+			return NullValue.INSTANCE;
+		}
+		try {
+			return reader.readValue(bytes);
+		} catch (Exception e) {
+			throw new SerializationException("Could not read JSON: " + e.getMessage(), e);
+		}
+	}
+
+	public JavaType getJavaType() {
+		return javaType;
+	}
+}
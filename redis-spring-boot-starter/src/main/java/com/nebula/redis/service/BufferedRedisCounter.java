@@ -0,0 +1,162 @@
+package com.nebula.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description 本地聚合计数器，适用于PV、接口调用次数等高频计数:增量先累加在JVM内的LongAdder中，
+ * 按固定间隔(即最大延迟)或累计次数达到阈值时通过一次pipeline批量INCRBY写入Redis，容器关闭时刷新剩余增量
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class BufferedRedisCounter implements DisposableBean {
+
+    private static Logger logger = LoggerFactory.getLogger(BufferedRedisCounter.class);
+
+    /**
+     * 每1024次累加检查一次阈值，避免每次都对pending求和
+     */
+    private static final int THRESHOLD_CHECK_MASK = 1023;
+
+    private final RedisCounter redisCounter;
+
+    private final long flushThreshold;
+
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 上一次刷新时从map中换下的计数器及当时已收集的值，下一次刷新时再收集一次差值，
+     * 避免换下瞬间仍持有旧引用的并发累加丢失(LongAdder.sumThenReset在并发累加时不是原子的)
+     */
+    private List<Retired> retired = new ArrayList<>();
+
+    private final LongAdder pending = new LongAdder();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ScheduledExecutorService executor;
+
+    public BufferedRedisCounter(RedisCounter redisCounter, long flushIntervalMillis, long flushThreshold) {
+        this.redisCounter = redisCounter;
+        this.flushThreshold = flushThreshold;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 增加计数(仅本地累加)
+     * @param key
+     * @param delta
+     */
+    public void increment(String key, long delta) {
+        LongAdder adder = counters.get(key);
+        if (adder == null) {
+            adder = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.add(delta);
+        pending.increment();
+        if ((ThreadLocalRandom.current().nextInt() & THRESHOLD_CHECK_MASK) == 0 && pending.sum() >= flushThreshold
+                && flushRequested.compareAndSet(false, true)) {
+            executor.execute(this::flushQuietly);
+        }
+    }
+
+    public void increment(String key) {
+        increment(key, 1);
+    }
+
+    /**
+     * 读取计数，等于Redis中的值加上本地尚未刷新的增量
+     * @param key
+     * @return
+     */
+    public long get(String key) {
+        LongAdder adder = counters.get(key);
+        return redisCounter.getLong(key) + (adder == null ? 0 : adder.sum());
+    }
+
+    /**
+     * 立即将本地增量刷新到Redis，写入失败时增量退回本地，等待下次刷新
+     */
+    public synchronized void flush() {
+        flushRequested.set(false);
+        pending.reset();
+        Map<String, Long> deltas = new HashMap<>();
+        for (Retired entry : retired) {
+            long value = entry.adder.sum() - entry.collected;
+            if (value != 0) {
+                deltas.merge(entry.key, value, Long::sum);
+            }
+        }
+        List<Retired> detached = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            String key = entry.getKey();
+            LongAdder adder = entry.getValue();
+            // 有增量的计数器换成新实例，空闲的直接移除，换下的实例不再被新的累加获取
+            boolean swapped = adder.sum() != 0 ? counters.replace(key, adder, new LongAdder()) : counters.remove(key, adder);
+            if (!swapped) {
+                continue;
+            }
+            long value = adder.sum();
+            if (value != 0) {
+                deltas.merge(key, value, Long::sum);
+            }
+            detached.add(new Retired(key, adder, value));
+        }
+        retired = detached;
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            redisCounter.incrementAll(deltas);
+        } catch (RuntimeException e) {
+            deltas.forEach((key, value) -> counters.computeIfAbsent(key, k -> new LongAdder()).add(value));
+            throw e;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("flush redis counters error, keys : {}", counters.size(), e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        flushQuietly();
+        flushQuietly();
+    }
+
+    private static class Retired {
+        private final String key;
+        private final LongAdder adder;
+        private final long collected;
+
+        private Retired(String key, LongAdder adder, long collected) {
+            this.key = key;
+            this.adder = adder;
+            this.collected = collected;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.nebula.redis.service;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * @Description 只读紧凑Map:key按顺序存放在数组中，按二分查找读取，不为每个条目创建Entry对象，
+ * 适合一次性加载的大hash表(内存占用约为HashMap的一半)；重复的key保留最后一个值
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public final class CompactMap<V> extends AbstractMap<String, V> {
+
+    private final String[] keys;
+
+    private final Object[] values;
+
+    private CompactMap(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @param keys 会被重新排序，调用方不应再使用
+     * @param values 与keys一一对应
+     * @param size 有效长度
+     * @param <V>
+     * @return
+     */
+    static <V> CompactMap<V> of(String[] keys, Object[] values, int size) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            int c = keys[a].compareTo(keys[b]);
+            return c != 0 ? c : Integer.compare(a, b);
+        });
+        String[] sortedKeys = new String[size];
+        Object[] sortedValues = new Object[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int index = order[i];
+            if (n > 0 && sortedKeys[n - 1].equals(keys[index])) {
+                sortedValues[n - 1] = values[index];
+                continue;
+            }
+            sortedKeys[n] = keys[index];
+            sortedValues[n] = values[index];
+            n++;
+        }
+        return new CompactMap<>(n == size ? sortedKeys : Arrays.copyOf(sortedKeys, n),
+                n == size ? sortedValues : Arrays.copyOf(sortedValues, n));
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new Iterator<Entry<String, V>>() {
+                    private int index;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys.length;
+                    }
+
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Entry<String, V> next() {
+                        if (index >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        Entry<String, V> entry = new SimpleImmutableEntry<>(keys[index], (V) values[index]);
+                        index++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,390 @@
+package com.nebula.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @Description 布隆过滤器，用于拦截不存在的key防止缓存穿透。
+ * 服务端安装了RedisBloom模块时使用BF.*命令，否则在Redis中以bitmap维护，多个位的SETBIT/GETBIT通过pipeline一次发送。
+ * 过滤器key不存在(未初始化或被淘汰、清空)时一律视为可能存在，避免误拦截；
+ * 从数据源完整写入后调用markSeeded标记，mightContainSeeded只在已标记的过滤器上判定，用于拦截只由部分写入填充的过滤器无法判定的场景
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisBloomFilter {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisBloomFilter.class);
+
+    public enum Mode {
+        /**
+         * 首次使用时探测RedisBloom模块，可用则使用服务端过滤器
+         */
+        AUTO,
+        SERVER,
+        CLIENT
+    }
+
+    /**
+     * bitmap最大位数(Redis字符串最大512MB)
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    /**
+     * 初始化完成标记key的后缀
+     */
+    private static final String SEEDED_SUFFIX = ":seeded";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String keyPrefix;
+
+    private final long expectedInsertions;
+
+    private final double fpp;
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    private volatile Mode mode;
+
+    /**
+     * 各过滤器的bitmap位数和哈希函数个数，未单独设置预期元素个数的过滤器使用默认值
+     */
+    private final Map<String, long[]> clientParams = new ConcurrentHashMap<>();
+
+    private final long[] defaultParams;
+
+    private final Set<String> reserved = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, Long> customInsertions = new ConcurrentHashMap<>();
+
+    public RedisBloomFilter(RedisTemplate<String, Object> redisTemplate, String keyPrefix, long expectedInsertions, double fpp, Mode mode) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.numBits = optimalNumOfBits(expectedInsertions, fpp);
+        this.numHashFunctions = optimalNumOfHashFunctions(expectedInsertions, numBits);
+        this.defaultParams = new long[]{numBits, numHashFunctions};
+        this.mode = mode;
+    }
+
+    /**
+     * 为指定过滤器设置预期元素个数，需在过滤器写入数据前设置；服务端模式在BF.RESERVE时生效，
+     * 客户端模式决定该过滤器的bitmap位数和哈希函数个数，已有数据的过滤器修改后需删除重建
+     * @param name
+     * @param insertions
+     */
+    public void setExpectedInsertions(String name, long insertions) {
+        customInsertions.put(name, insertions);
+        clientParams.remove(name);
+    }
+
+    /**
+     * 添加元素
+     * @param name 过滤器名称
+     * @param element
+     */
+    public void add(String name, String element) {
+        addAll(name, Collections.singletonList(element));
+    }
+
+    /**
+     * 通过pipeline批量添加元素
+     * @param name
+     * @param elements
+     */
+    public void addAll(String name, Collection<String> elements) {
+        if (elements == null || elements.isEmpty()) {
+            return;
+        }
+        final byte[] key = rawKey(name);
+        if (isServerSide()) {
+            reserve(name, key);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String element : elements) {
+                    connection.execute("BF.ADD", key, bytes(element));
+                }
+                return null;
+            });
+            return;
+        }
+        final long[] params = clientParams(name);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String element : elements) {
+                for (long offset : offsets(element, params)) {
+                    connection.stringCommands().setBit(key, offset, true);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 判断元素是否可能存在，返回false时元素一定不存在；过滤器key不存在时返回true。
+     * EXISTS与查询命令在同一个pipeline中发送，不增加网络往返
+     * @param name
+     * @param element
+     * @return
+     */
+    public boolean mightContain(String name, String element) {
+        return mightContain(name, element, rawKey(name));
+    }
+
+    /**
+     * 判断元素是否可能存在，过滤器未通过markSeeded标记为已从数据源完整初始化，或过滤器key不存在(被淘汰)时返回true；
+     * 标记与查询命令在同一个pipeline中发送
+     * @param name
+     * @param element
+     * @return
+     */
+    public boolean mightContainSeeded(String name, String element) {
+        return mightContain(name, element, rawKey(name), bytes(keyPrefix + name + SEEDED_SUFFIX));
+    }
+
+    /**
+     * 标记过滤器已从数据源完整初始化，此后mightContainSeeded返回false的元素一定不存在
+     * @param name
+     */
+    public void markSeeded(String name) {
+        final byte[] key = bytes(keyPrefix + name + SEEDED_SUFFIX);
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.stringCommands().set(key, bytes("1")));
+    }
+
+    /**
+     * 是否已标记为从数据源完整初始化
+     * @param name
+     * @return
+     */
+    public boolean isSeeded(String name) {
+        final byte[] key = bytes(keyPrefix + name + SEEDED_SUFFIX);
+        return Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.keyCommands().exists(key)));
+    }
+
+    /**
+     * @param existsKeys 任意一个不存在时视为可能存在
+     */
+    private boolean mightContain(String name, String element, byte[]... existsKeys) {
+        final byte[] key = rawKey(name);
+        if (isServerSide()) {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.keyCommands().exists(existsKeys);
+                connection.execute("BF.EXISTS", key, bytes(element));
+                return null;
+            });
+            if (!allExist(results.get(0), existsKeys.length)) {
+                return true;
+            }
+            Object result = results.get(1);
+            return !(result instanceof Long) || (Long) result != 0;
+        }
+        final long[] offsets = offsets(element, clientParams(name));
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().exists(existsKeys);
+            for (long offset : offsets) {
+                connection.stringCommands().getBit(key, offset);
+            }
+            return null;
+        });
+        if (!allExist(results.get(0), existsKeys.length)) {
+            return true;
+        }
+        for (int i = 1; i < results.size(); i++) {
+            if (!Boolean.TRUE.equals(results.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allExist(Object existsResult, int keys) {
+        return existsResult instanceof Number && ((Number) existsResult).longValue() == keys;
+    }
+
+    /**
+     * 删除过滤器及其初始化标记
+     * @param name
+     */
+    public void delete(String name) {
+        redisTemplate.delete(Arrays.asList(keyPrefix + name, keyPrefix + name + SEEDED_SUFFIX));
+        reserved.remove(name);
+    }
+
+    private boolean isServerSide() {
+        if (mode == Mode.AUTO) {
+            mode = detectMode();
+        }
+        return mode == Mode.SERVER;
+    }
+
+    /**
+     * 仅在服务端明确返回未知命令时切换到客户端模式；连接超时等临时错误直接抛出，保持AUTO以便下次重新探测
+     */
+    private Mode detectMode() {
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.execute("BF.EXISTS", bytes(keyPrefix + "__probe__"), bytes("probe")));
+            logger.info("RedisBloom module detected, use server side bloom filter");
+            return Mode.SERVER;
+        } catch (RuntimeException e) {
+            if (!isUnknownCommand(e)) {
+                throw e;
+            }
+            logger.info("RedisBloom module not available, use client side bitmap bloom filter");
+            return Mode.CLIENT;
+        }
+    }
+
+    private static boolean isUnknownCommand(Throwable e) {
+        while (e != null) {
+            if (e.getMessage() != null && e.getMessage().toLowerCase().contains("unknown command")) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * @return [bitmap位数, 哈希函数个数]
+     */
+    private long[] clientParams(String name) {
+        Long insertions = customInsertions.get(name);
+        if (insertions == null) {
+            return defaultParams;
+        }
+        return clientParams.computeIfAbsent(name, n -> {
+            long bits = optimalNumOfBits(insertions, fpp);
+            return new long[]{bits, optimalNumOfHashFunctions(insertions, bits)};
+        });
+    }
+
+    private void reserve(String name, byte[] key) {
+        if (reserved.contains(name)) {
+            return;
+        }
+        long capacity = customInsertions.getOrDefault(name, expectedInsertions);
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                if (Boolean.TRUE.equals(connection.keyCommands().exists(key))) {
+                    return null;
+                }
+                return connection.execute("BF.RESERVE", key, bytes(String.valueOf(fpp)), bytes(String.valueOf(capacity)));
+            });
+        } catch (Exception e) {
+            logger.debug("BF.RESERVE ignored, name : {}", name, e);
+        }
+        reserved.add(name);
+    }
+
+    private byte[] rawKey(String name) {
+        return bytes(keyPrefix + name);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 采用Kirsch-Mitzenmacher双重哈希，由murmur3 128位哈希的高低64位生成k个位置
+     */
+    private static long[] offsets(String element, long[] params) {
+        long bits = params[0];
+        int hashFunctions = (int) params[1];
+        long[] hash = murmur3(bytes(element));
+        long[] offsets = new long[hashFunctions];
+        long combined = hash[0];
+        for (int i = 0; i < hashFunctions; i++) {
+            offsets[i] = (combined & Long.MAX_VALUE) % bits;
+            combined += hash[1];
+        }
+        return offsets;
+    }
+
+    static long optimalNumOfBits(long n, double p) {
+        long bits = (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        return Math.max(64, Math.min(bits, MAX_BITS));
+    }
+
+    static int optimalNumOfHashFunctions(long n, long m) {
+        return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    private static long[] murmur3(byte[] data) {
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        int length = data.length;
+        int blocks = length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        for (int i = length - tail - 1; i >= 8; i--) {
+            k2 ^= ((long) data[tail + i] & 0xff) << ((i - 8) * 8);
+        }
+        for (int i = Math.min(length - tail, 8) - 1; i >= 0; i--) {
+            k1 ^= ((long) data[tail + i] & 0xff) << (i * 8);
+        }
+        if (k2 != 0) {
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+        }
+        if (k1 != 0) {
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+        }
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[]{h1, h2};
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+}
@@ -0,0 +1,202 @@
+package com.nebula.redis.service;
+
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Description 计数器/计量值，数值按Redis原生的十进制字符串读写(与INCRBY写入的格式一致)，不经过JSON序列化，
+ * 读取时直接从字节解析为long/double，批量读写通过MGET和pipeline完成
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisCounter {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    public RedisCounter(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 增加计数
+     * @param key
+     * @param delta
+     * @return 增加后的值
+     */
+    public long increment(String key, long delta) {
+        final byte[] rawKey = rawKey(key);
+        Long value = redisTemplate.execute((RedisCallback<Long>) connection -> connection.stringCommands().incrBy(rawKey, delta));
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 增加计数(浮点数)
+     * @param key
+     * @param delta
+     * @return 增加后的值
+     */
+    public double increment(String key, double delta) {
+        final byte[] rawKey = rawKey(key);
+        Double value = redisTemplate.execute((RedisCallback<Double>) connection -> connection.stringCommands().incrBy(rawKey, delta));
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 设置计数
+     * @param key
+     * @param value
+     */
+    public void set(String key, long value) {
+        setRaw(key, Long.toString(value));
+    }
+
+    /**
+     * 设置计量值
+     * @param key
+     * @param value
+     */
+    public void set(String key, double value) {
+        setRaw(key, Double.toString(value));
+    }
+
+    /**
+     * 读取计数
+     * @param key
+     * @return 不存在返回0
+     */
+    public long getLong(String key) {
+        return parseLong(getRaw(key), 0);
+    }
+
+    /**
+     * 读取计量值
+     * @param key
+     * @return 不存在返回0
+     */
+    public double getDouble(String key) {
+        byte[] value = getRaw(key);
+        return value == null ? 0 : Double.parseDouble(new String(value, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * 批量读取计数(MGET)
+     * @param keys
+     * @return 与keys顺序一致，不存在的key为0
+     */
+    public long[] getLongs(List<String> keys) {
+        List<byte[]> values = multiGetRaw(keys);
+        long[] result = new long[keys.size()];
+        for (int i = 0; i < result.length && values != null && i < values.size(); i++) {
+            result[i] = parseLong(values.get(i), 0);
+        }
+        return result;
+    }
+
+    /**
+     * 批量读取计量值(MGET)
+     * @param keys
+     * @return 与keys顺序一致，不存在的key为0
+     */
+    public double[] getDoubles(List<String> keys) {
+        List<byte[]> values = multiGetRaw(keys);
+        double[] result = new double[keys.size()];
+        for (int i = 0; i < result.length && values != null && i < values.size(); i++) {
+            byte[] value = values.get(i);
+            result[i] = value == null ? 0 : Double.parseDouble(new String(value, StandardCharsets.US_ASCII));
+        }
+        return result;
+    }
+
+    /**
+     * 通过pipeline批量增加计数
+     * @param deltas key与增量
+     */
+    public void incrementAll(Map<String, Long> deltas) {
+        if (deltas == null || deltas.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                connection.stringCommands().incrBy(rawKey(entry.getKey()), entry.getValue());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 通过pipeline批量增加计数并返回增加后的值
+     * @param keys
+     * @param deltas 与keys一一对应
+     * @return
+     */
+    public long[] incrementAll(String[] keys, long[] deltas) {
+        if (keys.length != deltas.length) {
+            throw new IllegalArgumentException("keys and deltas must have the same length");
+        }
+        List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < keys.length; i++) {
+                connection.stringCommands().incrBy(rawKey(keys[i]), deltas[i]);
+            }
+            return null;
+        });
+        long[] result = new long[keys.length];
+        for (int i = 0; i < result.length; i++) {
+            Object value = values.get(i);
+            result[i] = value instanceof Long ? (Long) value : 0;
+        }
+        return result;
+    }
+
+    private void setRaw(String key, String value) {
+        final byte[] rawKey = rawKey(key);
+        final byte[] rawValue = value.getBytes(StandardCharsets.US_ASCII);
+        redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(rawKey, rawValue));
+    }
+
+    private byte[] getRaw(String key) {
+        final byte[] rawKey = rawKey(key);
+        return redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+    }
+
+    private List<byte[]> multiGetRaw(List<String> keys) {
+        final byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = rawKey(keys.get(i));
+        }
+        return redisTemplate.execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    /**
+     * 直接从ASCII字节解析long，避免创建中间字符串
+     */
+    static long parseLong(byte[] value, long defaultValue) {
+        if (value == null || value.length == 0) {
+            return defaultValue;
+        }
+        int i = 0;
+        boolean negative = false;
+        if (value[0] == '-' || value[0] == '+') {
+            negative = value[0] == '-';
+            i = 1;
+        }
+        long result = 0;
+        for (; i < value.length; i++) {
+            int digit = value[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return (long) Double.parseDouble(new String(value, StandardCharsets.US_ASCII));
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+}
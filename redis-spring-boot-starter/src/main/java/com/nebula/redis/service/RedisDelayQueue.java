@@ -0,0 +1,246 @@
+package com.nebula.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Description 基于有序集合的延时队列，score为到期时间戳(毫秒)，到期元素通过Lua脚本原子地批量转移到就绪列表，
+ * 轮询间隔根据下一个到期元素自适应调整。就绪列表与RedisService的leftPush/rightPop约定一致，可直接用rightPop消费
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisDelayQueue {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisDelayQueue.class);
+
+    /**
+     * 转移到期元素:返回-1表示本批已满仍有到期元素，0表示延时队列为空，否则返回下一个元素的到期时间
+     */
+    private static final RedisScript<Long> TRANSFER_SCRIPT = new DefaultRedisScript<>(
+            "local items = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) " +
+            "if #items > 0 then " +
+            "  redis.call('ZREM', KEYS[1], unpack(items)) " +
+            "  redis.call('LPUSH', KEYS[2], unpack(items)) " +
+            "  if #items >= tonumber(ARGV[2]) then return -1 end " +
+            "end " +
+            "local head = redis.call('ZRANGE', KEYS[1], 0, 0, 'WITHSCORES') " +
+            "if head[2] then return tonumber(head[2]) end " +
+            "return 0", Long.class);
+
+    private static final StringRedisSerializer ARGS_SERIALIZER = new StringRedisSerializer();
+
+    private static final GenericToStringSerializer<Long> RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String delayKey;
+
+    private final String readyKey;
+
+    /**
+     * 每次转移的最大元素个数(Lua unpack参数个数有限，不宜超过数千)
+     */
+    private int batchSize = 500;
+
+    /**
+     * 最小轮询间隔
+     */
+    private long minPollMillis = 10;
+
+    /**
+     * 最大轮询间隔，用于感知其他节点新增的更早到期元素
+     */
+    private long maxPollMillis = 1000;
+
+    private final Object monitor = new Object();
+
+    private volatile long nextWakeUp = Long.MAX_VALUE;
+
+    private volatile boolean running = false;
+
+    private Thread worker;
+
+    public RedisDelayQueue(RedisTemplate<String, Object> redisTemplate, String delayKey, String readyKey) {
+        this.redisTemplate = redisTemplate;
+        this.delayKey = delayKey;
+        this.readyKey = readyKey;
+    }
+
+    /**
+     * 添加延时元素
+     * @param value
+     * @param delay
+     * @param unit
+     * @return 存在返回false，不存在返回true
+     */
+    public boolean offer(Object value, long delay, TimeUnit unit) {
+        return offerAt(value, System.currentTimeMillis() + unit.toMillis(delay));
+    }
+
+    /**
+     * 添加在指定时间戳(毫秒)到期的元素
+     * @param value
+     * @param dueTime
+     * @return 存在返回false，不存在返回true
+     */
+    public boolean offerAt(Object value, long dueTime) {
+        Boolean added = redisTemplate.opsForZSet().add(delayKey, value, dueTime);
+        wakeUpIfEarlier(dueTime);
+        return Boolean.TRUE.equals(added);
+    }
+
+    /**
+     * 通过pipeline批量添加元素
+     * @param values 元素与到期时间戳(毫秒)
+     */
+    @SuppressWarnings("unchecked")
+    public void offerAll(Map<?, Long> values) {
+        if (values == null || values.isEmpty()) {
+            return;
+        }
+        final byte[] rawKey = ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(delayKey);
+        final RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        long earliest = Long.MAX_VALUE;
+        for (Long dueTime : values.values()) {
+            earliest = Math.min(earliest, dueTime);
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Map.Entry<?, Long> entry : values.entrySet()) {
+                connection.zSetCommands().zAdd(rawKey, entry.getValue(), valueSerializer.serialize(entry.getKey()));
+            }
+            return null;
+        });
+        wakeUpIfEarlier(earliest);
+    }
+
+    /**
+     * 取消尚未到期的元素
+     * @param value
+     * @return
+     */
+    public boolean remove(Object value) {
+        Long removed = redisTemplate.opsForZSet().remove(delayKey, value);
+        return removed != null && removed > 0;
+    }
+
+    /**
+     * 延时队列中尚未到期的元素个数
+     * @return
+     */
+    public long size() {
+        Long size = redisTemplate.opsForZSet().zCard(delayKey);
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * 从就绪列表获取一个元素， 如果列表没有元素会阻塞直到等待超时或发现可弹出元素为止
+     * @param timeout
+     * @param unit
+     * @return
+     */
+    public Object take(long timeout, TimeUnit unit) {
+        return redisTemplate.opsForList().rightPop(readyKey, timeout, unit);
+    }
+
+    /**
+     * 立即转移一次到期元素
+     * @return 下一次轮询前需等待的毫秒数
+     */
+    public long transferDue() {
+        long now = System.currentTimeMillis();
+        Long result = redisTemplate.execute(TRANSFER_SCRIPT, ARGS_SERIALIZER, RESULT_SERIALIZER,
+                Arrays.asList(delayKey, readyKey), String.valueOf(now), String.valueOf(batchSize));
+        if (result == null || result == 0) {
+            nextWakeUp = Long.MAX_VALUE;
+            return maxPollMillis;
+        }
+        if (result < 0) {
+            return 0;
+        }
+        nextWakeUp = result;
+        return Math.max(minPollMillis, Math.min(maxPollMillis, result - now));
+    }
+
+    /**
+     * 启动后台转移线程，多个节点可同时启动，脚本保证元素只被转移一次
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::pollLoop, "redis-delay-queue-" + delayKey);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            long wait;
+            try {
+                wait = transferDue();
+            } catch (Exception e) {
+                logger.error("redis delay queue transfer error, key : {}", delayKey, e);
+                wait = maxPollMillis;
+            }
+            if (wait <= 0) {
+                continue;
+            }
+            synchronized (monitor) {
+                try {
+                    monitor.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void wakeUpIfEarlier(long dueTime) {
+        if (running && dueTime < nextWakeUp) {
+            nextWakeUp = dueTime;
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    public String getDelayKey() {
+        return delayKey;
+    }
+
+    public String getReadyKey() {
+        return readyKey;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setMinPollMillis(long minPollMillis) {
+        this.minPollMillis = minPollMillis;
+    }
+
+    public void setMaxPollMillis(long maxPollMillis) {
+        this.maxPollMillis = maxPollMillis;
+    }
+}
@@ -0,0 +1,310 @@
+package com.nebula.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * @Description 排行榜:分数增量先在本地合并再定时通过pipeline批量ZINCRBY；
+ * 前N名从本地快照读取，快照过期后异步刷新(刷新期间返回旧快照)；按成员排名前后分页通过一次Lua调用完成
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisLeaderboard implements DisposableBean {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisLeaderboard.class);
+
+    /**
+     * ARGV: 成员, 前后各取的个数。返回 {成员排名(从0开始，从大到小), 成员1, 分数1, 成员2, 分数2...}，成员不存在返回空
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> AROUND_SCRIPT = new DefaultRedisScript<>(
+            "local rank = redis.call('ZREVRANK', KEYS[1], ARGV[1]) " +
+            "if not rank then return {} end " +
+            "local radius = tonumber(ARGV[2]) " +
+            "local start = rank - radius " +
+            "if start < 0 then start = 0 end " +
+            "local items = redis.call('ZREVRANGE', KEYS[1], start, rank + radius, 'WITHSCORES') " +
+            "local result = {rank, start} " +
+            "for i = 1, #items do result[#result + 1] = items[i] end " +
+            "return result", List.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final ConcurrentMap<String, ConcurrentMap<Object, DoubleAdder>> pendingScores = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * 上一次刷新时换下的分数累加器及当时已收集的值，下一次刷新时再收集一次差值，避免并发累加丢失
+     */
+    private List<Retired> retired = new ArrayList<>();
+
+    /**
+     * 上一次刷新时移除的空排行榜，下一次刷新时收集移除瞬间并发写入的增量
+     */
+    private List<Map.Entry<String, ConcurrentMap<Object, DoubleAdder>>> retiredBoards = new ArrayList<>();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 本地快照保留的名次数
+     */
+    private final int snapshotSize;
+
+    /**
+     * 快照有效期(毫秒)
+     */
+    private final long snapshotTtlMillis;
+
+    public RedisLeaderboard(RedisTemplate<String, Object> redisTemplate, long flushIntervalMillis, int snapshotSize, long snapshotTtlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.snapshotSize = snapshotSize;
+        this.snapshotTtlMillis = snapshotTtlMillis;
+        this.executor = Executors.newScheduledThreadPool(1, r -> {
+            Thread thread = new Thread(r, "redis-leaderboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public static class RankedMember {
+        private final Object member;
+        private final double score;
+        private final long rank;
+
+        public RankedMember(Object member, double score, long rank) {
+            this.member = member;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public Object getMember() {
+            return member;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * 排名，从0开始，分数从大到小
+         */
+        public long getRank() {
+            return rank;
+        }
+    }
+
+    private static class Snapshot {
+        private final List<RankedMember> members;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Snapshot(List<RankedMember> members, long loadedAt) {
+            this.members = members;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * 增加成员分数(本地合并，定时刷新到Redis)
+     * @param key
+     * @param member
+     * @param delta
+     */
+    public void incrementScore(String key, Object member, double delta) {
+        pendingScores.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(member, m -> new DoubleAdder()).add(delta);
+    }
+
+    /**
+     * 获取前n名，n不超过快照大小时从本地快照读取
+     * @param key
+     * @param n
+     * @return
+     */
+    public List<RankedMember> top(String key, int n) {
+        if (n > snapshotSize) {
+            return load(key, 0, n - 1);
+        }
+        Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            snapshot = refresh(key);
+        } else if (System.currentTimeMillis() - snapshot.loadedAt > snapshotTtlMillis
+                && snapshot.refreshing.compareAndSet(false, true)) {
+            Snapshot stale = snapshot;
+            executor.execute(() -> {
+                try {
+                    refresh(key);
+                } catch (Exception e) {
+                    stale.refreshing.set(false);
+                    logger.error("refresh leaderboard snapshot error, key : {}", key, e);
+                }
+            });
+        }
+        List<RankedMember> members = snapshot.members;
+        return members.size() <= n ? members : members.subList(0, n);
+    }
+
+    /**
+     * 获取成员前后各radius名的排名数据，一次调用完成
+     * @param key
+     * @param member
+     * @param radius
+     * @return 成员不存在返回空列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<RankedMember> around(String key, Object member, int radius) {
+        List<Object> result = redisTemplate.execute(AROUND_SCRIPT, Collections.singletonList(key), member, radius);
+        if (result == null || result.size() < 2) {
+            return Collections.emptyList();
+        }
+        long rank = ((Number) result.get(1)).longValue();
+        List<RankedMember> members = new ArrayList<>((result.size() - 2) / 2);
+        for (int i = 2; i + 1 < result.size(); i += 2) {
+            members.add(new RankedMember(result.get(i), toDouble(result.get(i + 1)), rank++));
+        }
+        return members;
+    }
+
+    /**
+     * 获取成员排名(从大到小，从0开始)
+     * @param key
+     * @param member
+     * @return 不存在返回-1
+     */
+    public long rank(String key, Object member) {
+        Long rank = redisTemplate.opsForZSet().reverseRank(key, member);
+        return rank == null ? -1 : rank;
+    }
+
+    /**
+     * 立即将本地合并的分数增量刷新到Redis
+     */
+    public synchronized void flush() {
+        Map<String, Map<Object, Double>> deltas = new HashMap<>();
+        for (Retired entry : retired) {
+            addDelta(deltas, entry.key, entry.member, entry.adder.sum() - entry.collected);
+        }
+        for (Map.Entry<String, ConcurrentMap<Object, DoubleAdder>> board : retiredBoards) {
+            board.getValue().forEach((member, adder) -> addDelta(deltas, board.getKey(), member, adder.sum()));
+        }
+        List<Retired> detached = new ArrayList<>();
+        List<Map.Entry<String, ConcurrentMap<Object, DoubleAdder>>> emptied = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentMap<Object, DoubleAdder>> board : pendingScores.entrySet()) {
+            ConcurrentMap<Object, DoubleAdder> members = board.getValue();
+            for (Map.Entry<Object, DoubleAdder> entry : members.entrySet()) {
+                DoubleAdder adder = entry.getValue();
+                // 有增量的累加器换成新实例，空闲的直接移除，换下的实例不再被新的累加获取
+                boolean swapped = adder.sum() != 0 ? members.replace(entry.getKey(), adder, new DoubleAdder())
+                        : members.remove(entry.getKey(), adder);
+                if (swapped) {
+                    double delta = adder.sum();
+                    addDelta(deltas, board.getKey(), entry.getKey(), delta);
+                    detached.add(new Retired(board.getKey(), entry.getKey(), adder, delta));
+                }
+            }
+            if (members.isEmpty() && pendingScores.remove(board.getKey(), members)) {
+                emptied.add(board);
+            }
+        }
+        retired = detached;
+        retiredBoards = emptied;
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    ZSetOperations<String, Object> zSet = operations.opsForZSet();
+                    deltas.forEach((key, members) -> members.forEach((member, delta) -> zSet.incrementScore(key, member, delta)));
+                    return null;
+                }
+            });
+        } catch (RuntimeException e) {
+            deltas.forEach((key, members) -> members.forEach((member, delta) -> incrementScore(key, member, delta)));
+            throw e;
+        }
+    }
+
+    private static void addDelta(Map<String, Map<Object, Double>> deltas, String key, Object member, double delta) {
+        if (delta != 0) {
+            deltas.computeIfAbsent(key, k -> new HashMap<>()).merge(member, delta, Double::sum);
+        }
+    }
+
+    private Snapshot refresh(String key) {
+        Snapshot snapshot = new Snapshot(load(key, 0, snapshotSize - 1), System.currentTimeMillis());
+        snapshots.put(key, snapshot);
+        return snapshot;
+    }
+
+    private List<RankedMember> load(String key, long start, long end) {
+        Set<ZSetOperations.TypedTuple<Object>> tuples = redisTemplate.opsForZSet().reverseRangeWithScores(key, start, end);
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<RankedMember> members = new ArrayList<>(tuples.size());
+        long rank = start;
+        for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+            members.add(new RankedMember(tuple.getValue(), tuple.getScore() == null ? 0 : tuple.getScore(), rank++));
+        }
+        return Collections.unmodifiableList(members);
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(String.valueOf(value));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("flush leaderboard scores error", e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        flushQuietly();
+    }
+
+    private static class Retired {
+        private final String key;
+        private final Object member;
+        private final DoubleAdder adder;
+        private final double collected;
+
+        private Retired(String key, Object member, DoubleAdder adder, double collected) {
+            this.key = key;
+            this.member = member;
+            this.adder = adder;
+            this.collected = collected;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.nebula.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description Lua脚本注册表，启动时从classpath加载脚本(脚本名为文件名去掉.lua后缀)并通过SCRIPT LOAD预加载，
+ * 执行时使用EVALSHA，服务端脚本缓存丢失(NOSCRIPT，如重启或SCRIPT FLUSH)时由RedisTemplate自动回退到EVAL重新加载
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisScriptRegistry implements InitializingBean {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisScriptRegistry.class);
+
+    private static final String SUFFIX = ".lua";
+
+    private static final StringRedisSerializer STRING_SERIALIZER = new StringRedisSerializer();
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String locationPattern;
+
+    private final boolean preload;
+
+    /**
+     * 脚本名 -> 脚本内容
+     */
+    private final ConcurrentMap<String, String> sources = new ConcurrentHashMap<>();
+
+    /**
+     * 脚本名:返回类型 -> 脚本，DefaultRedisScript内部缓存了SHA1，避免每次调用重新计算
+     */
+    private final ConcurrentMap<String, RedisScript<?>> scripts = new ConcurrentHashMap<>();
+
+    public RedisScriptRegistry(RedisTemplate<String, Object> redisTemplate, String locationPattern, boolean preload) {
+        this.redisTemplate = redisTemplate;
+        this.locationPattern = locationPattern;
+        this.preload = preload;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (StringUtils.hasText(locationPattern)) {
+            loadResources();
+        }
+        if (preload && !sources.isEmpty()) {
+            try {
+                preload();
+            } catch (Exception e) {
+                logger.error("preload redis scripts error, scripts : {}", sources.keySet(), e);
+            }
+        }
+    }
+
+    private void loadResources() {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        try {
+            for (Resource resource : resolver.getResources(locationPattern)) {
+                String filename = resource.getFilename();
+                if (filename == null || !filename.endsWith(SUFFIX)) {
+                    continue;
+                }
+                try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+                    register(filename.substring(0, filename.length() - SUFFIX.length()), FileCopyUtils.copyToString(reader));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("load redis scripts error, location : {}", locationPattern, e);
+        }
+    }
+
+    /**
+     * 通过pipeline将所有脚本SCRIPT LOAD到服务端
+     */
+    public void preload() {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String source : sources.values()) {
+                connection.scriptingCommands().scriptLoad(STRING_SERIALIZER.serialize(source));
+            }
+            return null;
+        });
+        logger.info("preload redis scripts : {}", sources.keySet());
+    }
+
+    /**
+     * 注册脚本，同名脚本会被覆盖
+     * @param name
+     * @param source
+     */
+    public void register(String name, String source) {
+        sources.put(name, source);
+        scripts.keySet().removeIf(key -> key.startsWith(name + ":"));
+    }
+
+    public boolean contains(String name) {
+        return sources.containsKey(name);
+    }
+
+    public Map<String, String> getSources() {
+        return sources;
+    }
+
+    /**
+     * 获取指定返回类型的脚本
+     * @param name
+     * @param resultType
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RedisScript<T> get(String name, Class<T> resultType) {
+        String cacheKey = name + ":" + (resultType == null ? "void" : resultType.getName());
+        return (RedisScript<T>) scripts.computeIfAbsent(cacheKey, k -> {
+            String source = sources.get(name);
+            if (source == null) {
+                throw new IllegalArgumentException("redis script not found : " + name);
+            }
+            return new DefaultRedisScript<>(source, resultType);
+        });
+    }
+
+    /**
+     * 执行脚本，参数和返回值使用RedisTemplate的值序列化器，与RedisService写入的数据编码一致
+     * @param name
+     * @param resultType
+     * @param keys
+     * @param args
+     * @return
+     */
+    public <T> T execute(String name, Class<T> resultType, List<String> keys, Object... args) {
+        return execute(redisTemplate, name, resultType, keys, args);
+    }
+
+    /**
+     * 在指定模板上执行脚本，用于客户端分片时在keys所在的节点上执行
+     * @param template
+     * @param name
+     * @param resultType
+     * @param keys
+     * @param args
+     * @return
+     */
+    public <T> T execute(RedisTemplate<String, Object> template, String name, Class<T> resultType, List<String> keys, Object... args) {
+        return template.execute(get(name, resultType), keys, args);
+    }
+
+    /**
+     * 执行脚本，参数和返回值按字符串编码，适合数值、计数等参数
+     * @param name
+     * @param resultType
+     * @param keys
+     * @param args
+     * @return
+     */
+    public <T> T executeWithStringArgs(String name, Class<T> resultType, List<String> keys, String... args) {
+        return executeWithStringArgs(redisTemplate, name, resultType, keys, args);
+    }
+
+    /**
+     * 在指定模板上执行脚本，参数和返回值按字符串编码
+     * @param template
+     * @param name
+     * @param resultType
+     * @param keys
+     * @param args
+     * @return
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> T executeWithStringArgs(RedisTemplate<String, Object> template, String name, Class<T> resultType,
+                                       List<String> keys, String... args) {
+        return template.execute(get(name, resultType), STRING_SERIALIZER,
+                (RedisSerializer) STRING_SERIALIZER, keys, (Object[]) args);
+    }
+}
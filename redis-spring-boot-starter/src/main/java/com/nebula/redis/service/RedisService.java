@@ -1,18 +1,57 @@
 package com.nebula.redis.service;
 
+import com.nebula.redis.cache.ScanUnlinkBatchStrategy;
+import com.nebula.redis.shard.RedisShardRouter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.BitFieldSubCommands;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 /**
  * @Description RedisService
@@ -24,22 +63,180 @@ public class RedisService {
 
     private final static String WILDCARD = "*";
 
+    private final static String SEPARATOR = ":";
+
+    private final static int SCAN_BATCH_SIZE = 1000;
+
+    private final static DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final static int DEFAULT_UPDATE_RETRIES = 16;
+
+    private final static StringRedisSerializer SCRIPT_ARGS_SERIALIZER = new StringRedisSerializer();
+
+    private final static GenericToStringSerializer<Long> SCRIPT_RESULT_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
+    /**
+     * ARGV: 期望的旧值, 新值(序列化后的字节，空表示不存在/删除)。旧值一致时写入新值并保留剩余过期时间，返回1，否则返回0
+     */
+    private final static RedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[1]) " +
+            "if current == false then current = '' end " +
+            "if current ~= ARGV[1] then return 0 end " +
+            "if ARGV[2] == '' then redis.call('DEL', KEYS[1]) return 1 end " +
+            "local ttl = redis.call('PTTL', KEYS[1]) " +
+            "if ttl > 0 then redis.call('SET', KEYS[1], ARGV[2], 'PX', ttl) else redis.call('SET', KEYS[1], ARGV[2]) end " +
+            "return 1", Long.class);
+
+    /**
+     * KEYS: 目标key, 各天的key。ARGV: 目标key过期时间(秒)，小于等于0表示不设置。OR合并、设置过期时间并统计，一次往返完成
+     */
+    private final static RedisScript<Long> BIT_COUNT_OR_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('BITOP', 'OR', KEYS[1], unpack(KEYS, 2)) " +
+            "local ttl = tonumber(ARGV[1]) " +
+            "if ttl > 0 then redis.call('EXPIRE', KEYS[1], ttl) end " +
+            "return redis.call('BITCOUNT', KEYS[1])", Long.class);
+
+    private final LongAdder updates = new LongAdder();
+
+    private final LongAdder updateConflicts = new LongAdder();
+
+    private final LongAdder updateFailures = new LongAdder();
+
     @Autowired
     private RedisTemplate redisTemplate;
 
+    @Autowired
+    private RedisScriptRegistry redisScriptRegistry;
+
+    @Autowired
+    private RedisTimeoutExecutor redisTimeoutExecutor;
+
+    /**
+     * 配置客户端分片时按key路由到对应节点，序列化配置仍取自redisTemplate
+     */
+    @Autowired(required = false)
+    private RedisShardRouter redisShardRouter;
+
+    /**
+     * 分块加载单个集合时允许读取的最大原始字节数
+     */
+    @Value("${spring.redis.chunked-load.memory-budget:268435456}")
+    private long chunkedLoadMemoryBudget;
+
     public boolean hasKey(String key){
+        if (redisShardRouter != null) {
+            return redisShardRouter.hasKey(key);
+        }
         return redisTemplate.hasKey(key);
     }
 
     public boolean expire(String key, long time) {
-        return redisTemplate.expire(key, time, TimeUnit.SECONDS);
+        return template(key).expire(key, time, TimeUnit.SECONDS);
     }
 
     public long getExpire(String key){
-        return redisTemplate.getExpire(key,TimeUnit.SECONDS);
+        return template(key).getExpire(key,TimeUnit.SECONDS);
+    }
+
+    /**
+     * 设置过期时间，毫秒精度(PEXPIRE)
+     * @param key
+     * @param ttl
+     * @return
+     */
+    public boolean expire(String key, Duration ttl) {
+        return Boolean.TRUE.equals(template(key).expire(key, ttl.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 获取剩余过期时间(毫秒)，-1表示不过期，-2表示不存在
+     * @param key
+     * @return
+     */
+    public long getExpireMillis(String key) {
+        Long ttl = template(key).getExpire(key, TimeUnit.MILLISECONDS);
+        return ttl == null ? -2 : ttl;
+    }
+
+    /**
+     * 移除过期时间
+     * @param key
+     * @return
+     */
+    public boolean persist(String key) {
+        return Boolean.TRUE.equals(template(key).persist(key));
+    }
+
+    /**
+     * 批量设置过期时间，按批pipeline发送PEXPIRE
+     * @param keys
+     * @param ttl
+     * @return 设置成功的key数(不存在的key不计)
+     */
+    public long expire(Collection<String> keys, Duration ttl) {
+        long millis = ttl.toMillis();
+        return pipelineKeys(keys, (connection, key, rawKey) -> connection.keyCommands().pExpire(rawKey, millis));
+    }
+
+    /**
+     * 批量设置过期时间，每个key单独指定，按批pipeline发送PEXPIRE
+     * @param ttls
+     * @return 设置成功的key数
+     */
+    public long expire(Map<String, Duration> ttls) {
+        return pipelineKeys(ttls.keySet(), (connection, key, rawKey) -> connection.keyCommands().pExpire(rawKey, ttls.get(key).toMillis()));
+    }
+
+    /**
+     * 批量移除过期时间，按批pipeline发送PERSIST
+     * @param keys
+     * @return 移除成功的key数
+     */
+    public long persist(Collection<String> keys) {
+        return pipelineKeys(keys, (connection, key, rawKey) -> connection.keyCommands().persist(rawKey));
+    }
+
+    private interface KeyCommand {
+        void execute(RedisConnection connection, String key, byte[] rawKey);
+    }
+
+    /**
+     * 每SCAN_BATCH_SIZE个key一次pipeline，统计返回true的命令数
+     */
+    private long pipelineKeys(Collection<String> keys, KeyCommand command) {
+        if (CollectionUtils.isEmpty(keys)) {
+            return 0;
+        }
+        long count = 0;
+        List<String> batch = new ArrayList<>(Math.min(SCAN_BATCH_SIZE, keys.size()));
+        Iterator<String> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            batch.add(iterator.next());
+            if (batch.size() >= SCAN_BATCH_SIZE || !iterator.hasNext()) {
+                for (Map.Entry<RedisTemplate, List<String>> group : groupByTemplate(batch).entrySet()) {
+                    List<String> batchKeys = group.getValue();
+                    List<Object> results = group.getKey().executePipelined((RedisCallback<Object>) connection -> {
+                        for (String key : batchKeys) {
+                            command.execute(connection, key, rawKey(key));
+                        }
+                        return null;
+                    });
+                    for (Object result : results) {
+                        if (Boolean.TRUE.equals(result)) {
+                            count++;
+                        }
+                    }
+                }
+                batch = new ArrayList<>(batch.size());
+            }
+        }
+        return count;
     }
 
     public boolean del(String... keys) {
+        if (redisShardRouter != null) {
+            return redisShardRouter.del(Arrays.asList(keys)) > 0;
+        }
         if (keys.length == 1) {
             return redisTemplate.delete(keys[0]);
         }
@@ -47,13 +244,18 @@ public class RedisService {
     }
 
     /**
-     * 模糊匹配删除
+     * 模糊匹配删除，SCAN分批匹配并UNLINK删除，不使用阻塞的KEYS
      * @param keyPrefix
      * @return
      */
     public long delByKeyPrefix(String keyPrefix) {
-        Set<String> keys = redisTemplate.keys(keyPrefix + WILDCARD);
-        return redisTemplate.delete(keys);
+        long count = 0;
+        for (RedisTemplate template : templates()) {
+            Long deleted = (Long) template.execute((RedisCallback<Long>) connection ->
+                    new ScanUnlinkBatchStrategy(SCAN_BATCH_SIZE).cleanCache(connection, null, rawKey(keyPrefix + WILDCARD)));
+            count += deleted == null ? 0 : deleted;
+        }
+        return count;
     }
 
     /************************************** String start******************************************/
@@ -63,7 +265,7 @@ public class RedisService {
      * @param value
      */
     public void set(String key, Object value) {
-        redisTemplate.opsForValue().set(key, value);
+        template(key).opsForValue().set(key, value);
     }
 
     /**
@@ -73,7 +275,30 @@ public class RedisService {
      * @param time
      */
     public void set(String key, Object value, long time) {
-        redisTemplate.opsForValue().set(key, value, time, TimeUnit.SECONDS);
+        template(key).opsForValue().set(key, value, time, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 添加值并设置过期时间，毫秒精度
+     * @param key
+     * @param value
+     * @param ttl
+     */
+    public void set(String key, Object value, Duration ttl) {
+        template(key).opsForValue().set(key, value, ttl.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 修改值并保留原有的过期时间(SET KEEPTTL，需要Redis 6.0+)
+     * @param key
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public void setKeepTtl(String key, Object value) {
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+        template(key).execute((RedisCallback<Object>) connection ->
+                connection.stringCommands().set(rawKey, rawValue, Expiration.keepTtl(), RedisStringCommands.SetOption.upsert()));
     }
 
     /**
@@ -82,7 +307,7 @@ public class RedisService {
      * @param value
      */
     public void append(String key, String value) {
-        redisTemplate.opsForValue().append(key, value);
+        template(key).opsForValue().append(key, value);
     }
 
     /**
@@ -92,7 +317,112 @@ public class RedisService {
      * @return
      */
     public Object getAndSet(String key, Object value) {
-        return redisTemplate.opsForValue().getAndSet(key, value);
+        return template(key).opsForValue().getAndSet(key, value);
+    }
+
+    /**
+     * 乐观更新:WATCH后读取当前值，计算新值并在MULTI/EXEC中写入(保留剩余过期时间)，期间key被修改则重试，不使用分布式锁
+     * @param key
+     * @param fn 入参为当前值(不存在为null)，返回新值，返回null表示删除；重试时会被再次调用，不应有副作用
+     * @return 写入的新值
+     */
+    public Object update(String key, UnaryOperator<Object> fn) {
+        return update(key, fn, DEFAULT_UPDATE_RETRIES);
+    }
+
+    /**
+     * 乐观更新，首次执行加上最多maxRetries次重试均冲突时抛出OptimisticLockingFailureException
+     * @param key
+     * @param fn
+     * @param maxRetries 冲突后的最大重试次数，不能小于0，最多执行maxRetries + 1次
+     * @return 写入的新值
+     */
+    @SuppressWarnings("unchecked")
+    public Object update(String key, UnaryOperator<Object> fn, int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative : " + maxRetries);
+        }
+        int attempts = maxRetries + 1;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            Object[] updated = new Object[1];
+            List<Object> results = (List<Object>) template(key).execute(new SessionCallback<List<Object>>() {
+                @Override
+                public List<Object> execute(RedisOperations operations) throws DataAccessException {
+                    operations.watch(key);
+                    Long ttl;
+                    try {
+                        Object current = operations.opsForValue().get(key);
+                        ttl = operations.getExpire(key, TimeUnit.MILLISECONDS);
+                        updated[0] = fn.apply(current);
+                    } catch (RuntimeException e) {
+                        // 连接会归还连接池复用，异常时必须取消WATCH
+                        operations.unwatch();
+                        throw e;
+                    }
+                    operations.multi();
+                    try {
+                        if (updated[0] == null) {
+                            operations.delete(key);
+                        } else if (ttl != null && ttl > 0) {
+                            operations.opsForValue().set(key, updated[0], ttl, TimeUnit.MILLISECONDS);
+                        } else {
+                            operations.opsForValue().set(key, updated[0]);
+                        }
+                    } catch (RuntimeException e) {
+                        // 如新值序列化失败，DISCARD同时取消事务和WATCH
+                        operations.discard();
+                        throw e;
+                    }
+                    return operations.exec();
+                }
+            });
+            // 事务因WATCH的key被修改而放弃时，EXEC返回空
+            if (results != null && !results.isEmpty()) {
+                updates.increment();
+                return updated[0];
+            }
+            updateConflicts.increment();
+        }
+        updateFailures.increment();
+        throw new OptimisticLockingFailureException("Redis optimistic update failed after " + attempts + " attempts, key : " + key);
+    }
+
+    /**
+     * 比较并设置(Lua脚本，一次往返):当前值与expect序列化后的字节相同时写入update并保留剩余过期时间
+     * @param key
+     * @param expect 期望的当前值，null表示期望不存在
+     * @param update 新值，null表示删除
+     * @return 是否写入
+     */
+    public boolean compareAndSet(String key, Object expect, Object update) {
+        Long result = (Long) template(key).execute(COMPARE_AND_SET_SCRIPT, Collections.singletonList(key), expect, update);
+        if (result != null && result == 1) {
+            updates.increment();
+            return true;
+        }
+        updateConflicts.increment();
+        return false;
+    }
+
+    /**
+     * 乐观更新成功次数(含compareAndSet)
+     */
+    public long getUpdateCount() {
+        return updates.sum();
+    }
+
+    /**
+     * 乐观更新冲突次数(每次重试计一次，含compareAndSet失败)
+     */
+    public long getUpdateConflictCount() {
+        return updateConflicts.sum();
+    }
+
+    /**
+     * 超过重试次数仍未成功的次数
+     */
+    public long getUpdateFailureCount() {
+        return updateFailures.sum();
     }
 
     /**
@@ -101,7 +431,54 @@ public class RedisService {
      * @return
      */
     public Object get(String key) {
-       return redisTemplate.opsForValue().get(key);
+        if (redisShardRouter != null) {
+            return redisShardRouter.get(key);
+        }
+        return redisTemplate.opsForValue().get(key);
+    }
+
+    /**
+     * 获取值并重新设置过期时间，一次原子调用(GETEX，需要Redis 6.2+)，用于滑动过期的会话
+     * @param key
+     * @param ttl
+     * @return
+     */
+    public Object getAndExpire(String key, Duration ttl) {
+        return template(key).opsForValue().getAndExpire(key, ttl);
+    }
+
+    /**
+     * 获取值并移除过期时间(GETEX PERSIST，需要Redis 6.2+)
+     * @param key
+     * @return
+     */
+    public Object getAndPersist(String key) {
+        return template(key).opsForValue().getAndPersist(key);
+    }
+
+    /**
+     * 在指定超时内获取key对应的值，超时抛出QueryTimeoutException
+     * @param key
+     * @param timeout 为null表示使用READ类别的超时预算
+     * @return
+     */
+    public Object get(String key, Duration timeout) {
+        return redisTimeoutExecutor.execute(template -> template(template, key).opsForValue().get(key),
+                timeout != null ? timeout.toMillis() : redisTimeoutExecutor.getTimeout(RedisTimeoutExecutor.Family.READ));
+    }
+
+    /**
+     * 对冲读获取key对应的值，主请求较慢时向对冲模板再发一次请求，取先返回的结果
+     * @param key
+     * @param timeout 总超时，为null表示使用READ类别的超时预算
+     * @return
+     */
+    public Object hedgedGet(String key, Duration timeout) {
+        if (redisShardRouter != null) {
+            // 对冲模板为默认节点的副本，分片时不对冲
+            return get(key, timeout);
+        }
+        return redisTimeoutExecutor.hedgedRead(template -> template.opsForValue().get(key), timeout != null ? timeout.toMillis() : 0);
     }
 
     /**
@@ -112,7 +489,7 @@ public class RedisService {
      * @return
      */
     public String get(String key, long start, long end) {
-        return redisTemplate.opsForValue().get(key, start, end);
+        return template(key).opsForValue().get(key, start, end);
     }
 
     /**
@@ -122,7 +499,7 @@ public class RedisService {
      * @return
      */
     public long increment(String key, long delta) {
-        return redisTemplate.opsForValue().increment(key, delta);
+        return template(key).opsForValue().increment(key, delta);
     }
 
     /**
@@ -132,7 +509,7 @@ public class RedisService {
      * @return
      */
     public long decrease(String key, long delta) {
-        return redisTemplate.opsForValue().increment(key, -delta);
+        return template(key).opsForValue().increment(key, -delta);
     }
 
     /**
@@ -142,7 +519,7 @@ public class RedisService {
      * @return
      */
     public double increment(String key, double delta) {
-        return redisTemplate.opsForValue().increment(key, delta);
+        return template(key).opsForValue().increment(key, delta);
     }
 
     /**
@@ -152,7 +529,7 @@ public class RedisService {
      * @return
      */
     public double decrease(String key, double delta) {
-        return redisTemplate.opsForValue().increment(key, -delta);
+        return template(key).opsForValue().increment(key, -delta);
     }
 
     /**
@@ -162,7 +539,7 @@ public class RedisService {
      * @return
      */
     public boolean setIfAbsent(String key, Object value) {
-        return redisTemplate.opsForValue().setIfAbsent(key, value);
+        return template(key).opsForValue().setIfAbsent(key, value);
     }
 
     /**
@@ -171,6 +548,9 @@ public class RedisService {
      * @return
      */
     public List<Object> multiGet(Collection<String> keys) {
+        if (redisShardRouter != null) {
+            return redisShardRouter.multiGet(new ArrayList<>(keys));
+        }
         return redisTemplate.opsForValue().multiGet(keys);
     }
 
@@ -179,6 +559,10 @@ public class RedisService {
      * @param map
      */
     public void multiSet(Map<String, Object> map) {
+        if (redisShardRouter != null) {
+            redisShardRouter.multiSet(map);
+            return;
+        }
         redisTemplate.opsForValue().multiSet(map);
     }
 
@@ -188,12 +572,117 @@ public class RedisService {
      * @return
      */
     public boolean multiSetIfAbsent(Map<String, Object> map) {
-        return redisTemplate.opsForValue().multiSetIfAbsent(map);
+        return template(map.keySet()).opsForValue().multiSetIfAbsent(map);
     }
     /************************************** String end******************************************/
 
 
 
+    /************************************** Bytes start******************************************/
+    /**
+     * 写入原始字节，不经过值序列化器，适合已序列化的数据(protobuf、图片、预渲染的JSON等)
+     * @param key
+     * @param value
+     */
+    public void setBytes(String key, byte[] value) {
+        final byte[] rawKey = rawKey(key);
+        template(key).execute((RedisCallback<Boolean>) connection -> connection.stringCommands().set(rawKey, value));
+    }
+
+    /**
+     * 写入原始字节并设置过期时间
+     * @param key
+     * @param value
+     * @param time 过期时间(秒)
+     */
+    public void setBytes(String key, byte[] value, long time) {
+        final byte[] rawKey = rawKey(key);
+        template(key).execute((RedisCallback<Boolean>) connection -> connection.stringCommands()
+                .set(rawKey, value, Expiration.seconds(time), RedisStringCommands.SetOption.upsert()));
+    }
+
+    /**
+     * 读取原始字节
+     * @param key
+     * @return 不存在返回null
+     */
+    public byte[] getBytes(String key) {
+        final byte[] rawKey = rawKey(key);
+        return (byte[]) template(key).execute((RedisCallback<byte[]>) connection -> connection.stringCommands().get(rawKey));
+    }
+
+    /**
+     * 读取原始字节到调用方提供的缓冲区(从当前position开始写入)，缓冲区剩余空间不足时不写入
+     * @param key
+     * @param buffer
+     * @return 值的长度，不存在返回-1
+     */
+    public int getInto(String key, ByteBuffer buffer) {
+        byte[] value = getBytes(key);
+        if (value == null) {
+            return -1;
+        }
+        if (value.length <= buffer.remaining()) {
+            buffer.put(value);
+        }
+        return value.length;
+    }
+
+    /**
+     * 读取原始字节的指定范围(GETRANGE)，start与end均包含
+     * @param key
+     * @param start
+     * @param end
+     * @return
+     */
+    public byte[] getBytes(String key, long start, long end) {
+        final byte[] rawKey = rawKey(key);
+        return (byte[]) template(key).execute((RedisCallback<byte[]>) connection -> connection.stringCommands().getRange(rawKey, start, end));
+    }
+
+    /**
+     * 从offset开始覆盖写入原始字节(SETRANGE)
+     * @param key
+     * @param value
+     * @param offset
+     */
+    public void setRange(String key, byte[] value, long offset) {
+        final byte[] rawKey = rawKey(key);
+        template(key).execute((RedisCallback<Object>) connection -> {
+            connection.stringCommands().setRange(rawKey, value, offset);
+            return null;
+        });
+    }
+
+    /**
+     * 批量读取原始字节(MGET)
+     * @param keys
+     * @return 与keys顺序一致，不存在的key对应null
+     */
+    public List<byte[]> multiGetBytes(Collection<String> keys) {
+        final byte[][] rawKeys = new byte[keys.size()][];
+        int i = 0;
+        for (String key : keys) {
+            rawKeys[i++] = rawKey(key);
+        }
+        return (List<byte[]>) template(keys).execute((RedisCallback<List<byte[]>>) connection -> connection.stringCommands().mGet(rawKeys));
+    }
+
+    /**
+     * 批量写入原始字节(MSET)
+     * @param map
+     */
+    public void multiSetBytes(Map<String, byte[]> map) {
+        final Map<byte[], byte[]> raw = new LinkedHashMap<>(map.size());
+        for (Map.Entry<String, byte[]> entry : map.entrySet()) {
+            raw.put(rawKey(entry.getKey()), entry.getValue());
+        }
+        template(map.keySet()).execute((RedisCallback<Boolean>) connection -> connection.stringCommands().mSet(raw));
+    }
+    /************************************** Bytes end******************************************/
+
+
+
     /************************************** List start******************************************/
     /**
      * 返回列表中指定索引的值
@@ -202,7 +691,7 @@ public class RedisService {
      * @return
      */
     public Object index(String key, long index) {
-        return redisTemplate.opsForList().index(key, index);
+        return template(key).opsForList().index(key, index);
     }
 
     /**
@@ -212,7 +701,7 @@ public class RedisService {
      * @param end
      */
     public void trim(String key, long start, long end) {
-        redisTemplate.opsForList().trim(key, start, end);
+        template(key).opsForList().trim(key, start, end);
     }
 
     /**
@@ -223,7 +712,62 @@ public class RedisService {
      * @return
      */
     public List<Object> lRange(String key, long start, long end) {
-        return redisTemplate.opsForList().range(key, start, end);
+        return template(key).opsForList().range(key, start, end);
+    }
+
+    /**
+     * 分块获取列表指定范围内的元素:按chunkSize逐段LRANGE，每段在ForkJoin公共池中并行反序列化，
+     * 读取下一段与反序列化上一段同时进行，避免一次性读取和反序列化整个大列表。
+     * 注意结果不是快照:范围在开始时按当时的列表长度换算，各段是独立的LRANGE，
+     * 期间若有LPUSH/LPOP等修改列表头部的操作，元素索引整体偏移，段与段之间可能出现重复或遗漏的元素，
+     * 需要一致结果时使用不分块的lRange(key, start, end)
+     * @param key
+     * @param start
+     * @param end
+     * @param chunkSize
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> lRange(String key, long start, long end, int chunkSize) {
+        int size = Math.max(chunkSize, 1);
+        byte[] rawKey = rawKey(key);
+        RedisSerializer<Object> valueSerializer = redisTemplate.getValueSerializer();
+        List<CompletableFuture<Object[]>> chunks = new ArrayList<>();
+        template(key).execute((RedisCallback<Object>) connection -> {
+            Long length = connection.listCommands().lLen(rawKey);
+            if (length == null || length == 0) {
+                return null;
+            }
+            long from = start < 0 ? Math.max(length + start, 0) : start;
+            long to = end < 0 ? length + end : Math.min(end, length - 1);
+            if (to < from) {
+                return null;
+            }
+            long budget = chunkedLoadMemoryBudget;
+            for (long i = from; i <= to; i += size) {
+                List<byte[]> raw = connection.listCommands().lRange(rawKey, i, Math.min(i + size - 1, to));
+                if (raw == null || raw.isEmpty()) {
+                    break;
+                }
+                for (byte[] value : raw) {
+                    budget -= value.length;
+                }
+                checkMemoryBudget(key, budget, chunks);
+                chunks.add(CompletableFuture.supplyAsync(() -> {
+                    Object[] values = new Object[raw.size()];
+                    for (int j = 0; j < values.length; j++) {
+                        values[j] = valueSerializer.deserialize(raw.get(j));
+                    }
+                    return values;
+                }, ForkJoinPool.commonPool()));
+            }
+            return null;
+        });
+        List<Object> result = new ArrayList<>(chunks.size() * size);
+        for (CompletableFuture<Object[]> chunk : chunks) {
+            result.addAll(Arrays.asList(join(chunk)));
+        }
+        return result;
     }
 
     /**
@@ -234,7 +778,7 @@ public class RedisService {
      * @param value
      */
     public void set(String key, long index, Object value) {
-        redisTemplate.opsForList().set(key, index, value);
+        template(key).opsForList().set(key, index, value);
     }
 
     /**
@@ -248,7 +792,7 @@ public class RedisService {
      * @return
      */
     public long remove(String key, long count, Object value) {
-        return redisTemplate.opsForList().remove(key, count, value);
+        return template(key).opsForList().remove(key, count, value);
     }
 
     /**
@@ -257,7 +801,7 @@ public class RedisService {
      * @return
      */
     public long lSize(String key) {
-        return redisTemplate.opsForList().size(key);
+        return template(key).opsForList().size(key);
     }
 
     /**
@@ -267,7 +811,7 @@ public class RedisService {
      * @return 列表长度
      */
     public long leftPush(String key, Object value) {
-        return redisTemplate.opsForList().leftPush(key, value);
+        return template(key).opsForList().leftPush(key, value);
     }
 
     /**
@@ -278,7 +822,7 @@ public class RedisService {
      * @return
      */
     public long leftPush(String key, Object value1, Object value2) {
-        return redisTemplate.opsForList().leftPush(key, value1, value2);
+        return template(key).opsForList().leftPush(key, value1, value2);
     }
 
     /**
@@ -288,7 +832,7 @@ public class RedisService {
      * @return
      */
     public long leftPushAll(String key, Object... values) {
-        return redisTemplate.opsForList().leftPushAll(key, values);
+        return template(key).opsForList().leftPushAll(key, values);
     }
 
     /**
@@ -298,7 +842,7 @@ public class RedisService {
      * @return
      */
     public long leftPushAll(String key, Collection values) {
-        return redisTemplate.opsForList().leftPushAll(key, values);
+        return template(key).opsForList().leftPushAll(key, values);
     }
 
     /**
@@ -308,7 +852,7 @@ public class RedisService {
      * @return
      */
     public long leftPushIfPresent(String key, Object value) {
-        return redisTemplate.opsForList().leftPushIfPresent(key, value);
+        return template(key).opsForList().leftPushIfPresent(key, value);
     }
 
     /**
@@ -318,7 +862,7 @@ public class RedisService {
      * @return
      */
     public long rightPush(String key, Object value) {
-        return redisTemplate.opsForList().rightPush(key, value);
+        return template(key).opsForList().rightPush(key, value);
     }
 
     /**
@@ -329,7 +873,7 @@ public class RedisService {
      * @return
      */
     public long rightPush(String key, Object value1, Object value2) {
-        return redisTemplate.opsForList().rightPush(key, value1, value2);
+        return template(key).opsForList().rightPush(key, value1, value2);
     }
 
     /**
@@ -339,7 +883,7 @@ public class RedisService {
      * @return
      */
     public long rightfPushAll(String key, Object... values) {
-        return redisTemplate.opsForList().rightPushAll(key, values);
+        return template(key).opsForList().rightPushAll(key, values);
     }
 
     /**
@@ -349,7 +893,7 @@ public class RedisService {
      * @return
      */
     public long rightPushAll(String key, Collection values) {
-        return redisTemplate.opsForList().rightPushAll(key, values);
+        return template(key).opsForList().rightPushAll(key, values);
     }
 
     /**
@@ -359,7 +903,7 @@ public class RedisService {
      * @return
      */
     public long rightPushIfPresent(String key, Object value) {
-        return redisTemplate.opsForList().rightPushIfPresent(key, value);
+        return template(key).opsForList().rightPushIfPresent(key, value);
     }
 
     /**
@@ -368,7 +912,7 @@ public class RedisService {
      * @return
      */
     public Object leftPop(String key) {
-        return redisTemplate.opsForList().leftPop(key);
+        return template(key).opsForList().leftPop(key);
     }
 
     /**
@@ -379,7 +923,7 @@ public class RedisService {
      * @return 移除的元素
      */
     public Object leftPop(String key, long timeout, TimeUnit unit) {
-        return redisTemplate.opsForList().leftPop(key, timeout, unit);
+        return template(key).opsForList().leftPop(key, timeout, unit);
     }
 
     /**
@@ -388,7 +932,7 @@ public class RedisService {
      * @return
      */
     public Object rightPop(String key) {
-        return redisTemplate.opsForList().rightPop(key);
+        return template(key).opsForList().rightPop(key);
     }
 
     /**
@@ -399,7 +943,7 @@ public class RedisService {
      * @return 移除的元素
      */
     public Object rightPop(String key, long timeout, TimeUnit unit) {
-        return redisTemplate.opsForList().rightPop(key, timeout, unit);
+        return template(key).opsForList().rightPop(key, timeout, unit);
     }
 
     /**
@@ -409,7 +953,7 @@ public class RedisService {
      * @return
      */
     public Object rightPopAndLeftPush(String sourceKey, String destinationKey) {
-        return redisTemplate.opsForList().rightPopAndLeftPush(sourceKey, destinationKey);
+        return template(sourceKey, destinationKey).opsForList().rightPopAndLeftPush(sourceKey, destinationKey);
     }
 
     /**
@@ -421,7 +965,7 @@ public class RedisService {
      * @return
      */
     public Object rightPopAndLeftPush(String sourceKey, String destinationKey, long timeout, TimeUnit unit) {
-        return redisTemplate.opsForList().rightPopAndLeftPush(sourceKey, destinationKey, timeout, unit);
+        return template(sourceKey, destinationKey).opsForList().rightPopAndLeftPush(sourceKey, destinationKey, timeout, unit);
     }
     /************************************** List end******************************************/
 
@@ -435,7 +979,7 @@ public class RedisService {
      * @param hv
      */
     public void put(String key, Object hk, Object hv) {
-        redisTemplate.opsForHash().put(key, hk, hv);
+        template(key).opsForHash().put(key, hk, hv);
     }
 
     /**
@@ -444,7 +988,7 @@ public class RedisService {
      * @param map
      */
     public void putAll(String key, Map<String, Object> map) {
-        redisTemplate.opsForHash().putAll(key, map);
+        template(key).opsForHash().putAll(key, map);
     }
 
     /**
@@ -455,7 +999,7 @@ public class RedisService {
      * @return
      */
     public boolean putIfAbsent(String key, Object hk, Object hv) {
-        return redisTemplate.opsForHash().putIfAbsent(key, hk, hv);
+        return template(key).opsForHash().putIfAbsent(key, hk, hv);
     }
 
     /**
@@ -465,17 +1009,97 @@ public class RedisService {
      * @return
      */
     public long delete(String key, Object... hashKeys) {
-        return redisTemplate.opsForHash().delete(hashKeys);
+        if (hashKeys.length == 0) {
+            return 0;
+        }
+        Long deleted = template(key).opsForHash().delete(key, hashKeys);
+        return deleted == null ? 0 : deleted;
     }
 
     /**
      * 删除指定key对应的hash表中hashKey的值
      * @param key
      * @param hashKey
-     * @return
+     * @return 是否删除
      */
     public boolean delete(String key, Object hashKey) {
-        return redisTemplate.opsForHash().hasKey(key, hashKey);
+        Long deleted = template(key).opsForHash().delete(key, hashKey);
+        return deleted != null && deleted > 0;
+    }
+
+    /**
+     * 分批删除hash表中的大量hashKey，每条HDEL最多batchSize个field，以pipeline发送，单条命令耗时短不会长时间阻塞Redis
+     * @param key
+     * @param hashKeys
+     * @param batchSize
+     * @return 删除的field数
+     */
+    public long delete(String key, Collection<?> hashKeys, int batchSize) {
+        if (CollectionUtils.isEmpty(hashKeys)) {
+            return 0;
+        }
+        int size = Math.max(batchSize, 1);
+        List<Object> results = template(key).executePipelined(new SessionCallback<Object>() {
+            @Override
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                Object[] batch = new Object[Math.min(size, hashKeys.size())];
+                int count = 0;
+                Iterator<?> iterator = hashKeys.iterator();
+                while (iterator.hasNext()) {
+                    batch[count++] = iterator.next();
+                    if (count == batch.length || !iterator.hasNext()) {
+                        operations.opsForHash().delete(key, count == batch.length ? batch : Arrays.copyOf(batch, count));
+                        batch = new Object[batch.length];
+                        count = 0;
+                    }
+                }
+                return null;
+            }
+        });
+        long deleted = 0;
+        for (Object result : results) {
+            if (result instanceof Number) {
+                deleted += ((Number) result).longValue();
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * HSCAN分批匹配hashKey并HDEL删除，用于清理大hash表，不一次性加载全部field
+     * @param key
+     * @param pattern hashKey匹配模式，*表示全部
+     * @param batchSize
+     * @return 删除的field数
+     */
+    public long deleteByPattern(String key, String pattern, int batchSize) {
+        int size = Math.max(batchSize, 1);
+        byte[] rawKey = rawKey(key);
+        Long deleted = (Long) template(key).execute((RedisCallback<Long>) connection -> {
+            long count = 0;
+            try (Cursor<Map.Entry<byte[], byte[]>> cursor = connection.hashCommands().hScan(rawKey,
+                    ScanOptions.scanOptions().match(pattern).count(size).build())) {
+                List<byte[]> fields = new ArrayList<>(size);
+                while (cursor.hasNext()) {
+                    fields.add(cursor.next().getKey());
+                    if (fields.size() >= size) {
+                        count += hDel(connection, rawKey, fields);
+                        fields.clear();
+                    }
+                }
+                count += hDel(connection, rawKey, fields);
+            }
+            return count;
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    private static long hDel(RedisConnection connection, byte[] rawKey, List<byte[]> fields) {
+        if (fields.isEmpty()) {
+            return 0;
+        }
+        Long deleted = connection.hashCommands().hDel(rawKey, fields.toArray(new byte[0][]));
+        return deleted == null ? 0 : deleted;
     }
 
     /**
@@ -485,7 +1109,7 @@ public class RedisService {
      * @return
      */
     public Object get(String key, Object hashKey) {
-        return redisTemplate.opsForHash().get(key, hashKey);
+        return template(key).opsForHash().get(key, hashKey);
     }
 
     /**
@@ -494,7 +1118,35 @@ public class RedisService {
      * @return
      */
     public List values(String key) {
-        return redisTemplate.opsForHash().values(key);
+        return template(key).opsForHash().values(key);
+    }
+
+    /**
+     * 分块获取hash表的所有值，HSCAN逐批读取并行反序列化，见entries(String, int, boolean)；
+     * HSCAN在rehash期间可能重复返回同一field，按field去重，重复时保留后读到的值
+     * @param key
+     * @param chunkSize
+     * @return
+     */
+    public List<Object> values(String key, int chunkSize) {
+        List<HashChunk> chunks = scanHash(key, chunkSize);
+        int total = 0;
+        for (HashChunk chunk : chunks) {
+            total += chunk.size;
+        }
+        Map<String, Integer> indexes = new HashMap<>((int) (total / 0.75f) + 1);
+        List<Object> result = new ArrayList<>(total);
+        for (HashChunk chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                Integer index = indexes.putIfAbsent(chunk.keys[i], result.size());
+                if (index == null) {
+                    result.add(chunk.values[i]);
+                } else {
+                    result.set(index, chunk.values[i]);
+                }
+            }
+        }
+        return result;
     }
 
     /**
@@ -504,7 +1156,7 @@ public class RedisService {
      * @return
      */
     public List multiGet(String key, Collection<Object> hashKeys) {
-        return redisTemplate.opsForHash().multiGet(key, hashKeys);
+        return template(key).opsForHash().multiGet(key, hashKeys);
     }
 
     /**
@@ -515,7 +1167,7 @@ public class RedisService {
      * @return
      */
     public long increment(String key, Object hashKey, long delta) {
-        return redisTemplate.opsForHash().increment(key, hashKey, delta);
+        return template(key).opsForHash().increment(key, hashKey, delta);
     }
 
     /**
@@ -526,7 +1178,7 @@ public class RedisService {
      * @return
      */
     public long decrement(String key, Object hashKey, long delta) {
-        return redisTemplate.opsForHash().increment(key, hashKey, -delta);
+        return template(key).opsForHash().increment(key, hashKey, -delta);
     }
 
     /**
@@ -537,7 +1189,7 @@ public class RedisService {
      * @return
      */
     public double increment(String key, Object hashKey, double delta) {
-        return redisTemplate.opsForHash().increment(key, hashKey, delta);
+        return template(key).opsForHash().increment(key, hashKey, delta);
     }
 
     /**
@@ -548,7 +1200,7 @@ public class RedisService {
      * @return
      */
     public double decrement(String key, Object hashKey, double delta) {
-        return redisTemplate.opsForHash().increment(key, hashKey, -delta);
+        return template(key).opsForHash().increment(key, hashKey, -delta);
     }
 
     /**
@@ -557,7 +1209,7 @@ public class RedisService {
      * @return
      */
     public Set keys(String key) {
-        return redisTemplate.opsForHash().keys(key);
+        return template(key).opsForHash().keys(key);
     }
 
     /**
@@ -566,7 +1218,7 @@ public class RedisService {
      * @return
      */
     public long hSize(String key) {
-        return redisTemplate.opsForHash().size(key);
+        return template(key).opsForHash().size(key);
     }
 
     /**
@@ -575,7 +1227,127 @@ public class RedisService {
      * @return
      */
     public Map<String, Object> entries(String key) {
-        return redisTemplate.opsForHash().entries(key);
+        return template(key).opsForHash().entries(key);
+    }
+
+    /**
+     * 分块获取hash表数据:HSCAN每次读取约chunkSize个field，每批在ForkJoin公共池中并行反序列化，
+     * 读取的原始字节数超过spring.redis.chunked-load.memory-budget时抛出IllegalStateException
+     * @param key
+     * @param chunkSize
+     * @param compact 为true时返回只读的CompactMap，大hash表内存占用更小
+     * @return
+     */
+    public Map<String, Object> entries(String key, int chunkSize, boolean compact) {
+        List<HashChunk> chunks = scanHash(key, chunkSize);
+        int total = 0;
+        for (HashChunk chunk : chunks) {
+            total += chunk.size;
+        }
+        if (compact) {
+            String[] keys = new String[total];
+            Object[] values = new Object[total];
+            int offset = 0;
+            for (HashChunk chunk : chunks) {
+                System.arraycopy(chunk.keys, 0, keys, offset, chunk.size);
+                System.arraycopy(chunk.values, 0, values, offset, chunk.size);
+                offset += chunk.size;
+            }
+            return CompactMap.of(keys, values, total);
+        }
+        Map<String, Object> result = new HashMap<>((int) (total / 0.75f) + 1);
+        for (HashChunk chunk : chunks) {
+            for (int i = 0; i < chunk.size; i++) {
+                result.put(chunk.keys[i], chunk.values[i]);
+            }
+        }
+        return result;
+    }
+
+    private static class HashChunk {
+        private final String[] keys;
+        private final Object[] values;
+        private final int size;
+
+        private HashChunk(String[] keys, Object[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+    }
+
+    /**
+     * HSCAN逐批读取原始字节，每批提交到ForkJoin公共池反序列化，返回按读取顺序排列的结果
+     */
+    @SuppressWarnings("unchecked")
+    private List<HashChunk> scanHash(String key, int chunkSize) {
+        int size = Math.max(chunkSize, 1);
+        byte[] rawKey = rawKey(key);
+        RedisSerializer<String> hashKeySerializer = redisTemplate.getHashKeySerializer();
+        RedisSerializer<Object> hashValueSerializer = redisTemplate.getHashValueSerializer();
+        List<CompletableFuture<HashChunk>> futures = new ArrayList<>();
+        template(key).execute((RedisCallback<Object>) connection -> {
+            long budget = chunkedLoadMemoryBudget;
+            try (Cursor<Map.Entry<byte[], byte[]>> cursor = connection.hashCommands().hScan(rawKey,
+                    ScanOptions.scanOptions().count(size).build())) {
+                List<Map.Entry<byte[], byte[]>> batch = new ArrayList<>(size);
+                while (cursor.hasNext()) {
+                    Map.Entry<byte[], byte[]> entry = cursor.next();
+                    budget -= entry.getKey().length + entry.getValue().length;
+                    batch.add(entry);
+                    if (batch.size() >= size || !cursor.hasNext()) {
+                        checkMemoryBudget(key, budget, futures);
+                        List<Map.Entry<byte[], byte[]>> raw = batch;
+                        futures.add(CompletableFuture.supplyAsync(() -> {
+                            String[] keys = new String[raw.size()];
+                            Object[] values = new Object[raw.size()];
+                            for (int i = 0; i < values.length; i++) {
+                                Map.Entry<byte[], byte[]> e = raw.get(i);
+                                keys[i] = hashKeySerializer.deserialize(e.getKey());
+                                values[i] = hashValueSerializer.deserialize(e.getValue());
+                            }
+                            return new HashChunk(keys, values, values.length);
+                        }, ForkJoinPool.commonPool()));
+                        batch = new ArrayList<>(size);
+                    }
+                }
+            }
+            return null;
+        });
+        List<HashChunk> chunks = new ArrayList<>(futures.size());
+        for (CompletableFuture<HashChunk> future : futures) {
+            chunks.add(join(future));
+        }
+        return chunks;
+    }
+
+    private static void checkMemoryBudget(String key, long remaining, List<? extends CompletableFuture<?>> pending) {
+        if (remaining < 0) {
+            pending.forEach(future -> future.cancel(false));
+            throw new IllegalStateException("chunked load exceeds memory budget, key : " + key);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 在指定超时内获取hash表数据，超时抛出QueryTimeoutException
+     * @param key
+     * @param timeout 为null表示使用BULK类别的超时预算
+     * @return
+     */
+    public Map<String, Object> entries(String key, Duration timeout) {
+        return redisTimeoutExecutor.execute(template -> template(template, key).<String, Object>opsForHash().entries(key),
+                timeout != null ? timeout.toMillis() : redisTimeoutExecutor.getTimeout(RedisTimeoutExecutor.Family.BULK));
     }
 
     /**
@@ -585,7 +1357,7 @@ public class RedisService {
      * @return
      */
     public Cursor hScan(String key, ScanOptions options) {
-        return redisTemplate.opsForHash().scan(key, options);
+        return template(key).opsForHash().scan(key, options);
     }
 
     /************************************** Hash end******************************************/
@@ -600,7 +1372,7 @@ public class RedisService {
      * @return
      */
     public long add(String key, Object... values) {
-        return redisTemplate.opsForSet().add(key, values);
+        return template(key).opsForSet().add(key, values);
     }
 
     /**
@@ -610,7 +1382,7 @@ public class RedisService {
      * @return
      */
     public long remove(String key, Object... values) {
-        return redisTemplate.opsForSet().remove(key, values);
+        return template(key).opsForSet().remove(key, values);
     }
 
     /**
@@ -619,7 +1391,7 @@ public class RedisService {
      * @return
      */
     public Set members(String key) {
-        return redisTemplate.opsForSet().members(key);
+        return template(key).opsForSet().members(key);
     }
 
     /**
@@ -628,7 +1400,7 @@ public class RedisService {
      * @return
      */
     public Object randomMember(String key) {
-        return redisTemplate.opsForSet().randomMember(key);
+        return template(key).opsForSet().randomMember(key);
     }
 
     /**
@@ -638,7 +1410,7 @@ public class RedisService {
      * @return
      */
     public List randomMembers(String key, long count) {
-        return redisTemplate.opsForSet().randomMembers(key, count);
+        return template(key).opsForSet().randomMembers(key, count);
     }
 
     /**
@@ -648,7 +1420,7 @@ public class RedisService {
      * @return
      */
     public Set distinctRandomMembers(String key, long count) {
-        return redisTemplate.opsForSet().distinctRandomMembers(key, count);
+        return template(key).opsForSet().distinctRandomMembers(key, count);
     }
 
     /**
@@ -659,7 +1431,7 @@ public class RedisService {
      * @return
      */
     public boolean move(String sourceKey, Object value, String destinationKey) {
-        return redisTemplate.opsForSet().move(sourceKey, value, destinationKey);
+        return template(sourceKey, destinationKey).opsForSet().move(sourceKey, value, destinationKey);
     }
 
     /**
@@ -668,7 +1440,7 @@ public class RedisService {
      * @return
      */
     public Object pop(String key) {
-        return redisTemplate.opsForSet().pop(key);
+        return template(key).opsForSet().pop(key);
     }
 
     /**
@@ -678,7 +1450,7 @@ public class RedisService {
      * @return
      */
     public List pop(String key, long count) {
-        return redisTemplate.opsForSet().pop(key, count);
+        return template(key).opsForSet().pop(key, count);
     }
 
     /**
@@ -687,7 +1459,7 @@ public class RedisService {
      * @return
      */
     public long sSize(String key) {
-        return redisTemplate.opsForSet().size(key);
+        return template(key).opsForSet().size(key);
     }
 
     /**
@@ -697,7 +1469,7 @@ public class RedisService {
      * @return
      */
     public boolean isMember(String key, Object value) {
-        return redisTemplate.opsForSet().isMember(key, value);
+        return template(key).opsForSet().isMember(key, value);
     }
 
     /**
@@ -707,7 +1479,7 @@ public class RedisService {
      * @return
      */
     public Set intersect(String key1, String key2) {
-        return redisTemplate.opsForSet().intersect(key1, key2);
+        return template(key1, key2).opsForSet().intersect(key1, key2);
     }
 
     /**
@@ -717,7 +1489,7 @@ public class RedisService {
      * @return
      */
     public Set intersect(String key, Collection keys) {
-        return redisTemplate.opsForSet().intersect(key, keys);
+        return template(key, keys).opsForSet().intersect(key, keys);
     }
 
     /**
@@ -728,7 +1500,7 @@ public class RedisService {
      * @return 交集元素个数
      */
     public long intersectAndStore(String key1, String key2, String destKey) {
-        return redisTemplate.opsForSet().intersectAndStore(key1, key2, destKey);
+        return template(key1, key2, destKey).opsForSet().intersectAndStore(key1, key2, destKey);
     }
 
     /**
@@ -739,7 +1511,7 @@ public class RedisService {
      * @return 交集元素个数
      */
     public long intersectAndStore(String key, Collection keys, String destKey) {
-        return redisTemplate.opsForSet().intersectAndStore(key, keys, destKey);
+        return template(destKey, keys, key).opsForSet().intersectAndStore(key, keys, destKey);
     }
 
     /**
@@ -749,7 +1521,7 @@ public class RedisService {
      * @return
      */
     public Set union(String key1, String key2) {
-        return redisTemplate.opsForSet().union(key1, key2);
+        return template(key1, key2).opsForSet().union(key1, key2);
     }
 
     /**
@@ -759,7 +1531,7 @@ public class RedisService {
      * @return
      */
     public Set union(String key, Collection keys) {
-        return redisTemplate.opsForSet().union(key, keys);
+        return template(key, keys).opsForSet().union(key, keys);
     }
 
     /**
@@ -770,7 +1542,7 @@ public class RedisService {
      * @return
      */
     public long unionAndStore(String key1, String key2, String destKey) {
-        return redisTemplate.opsForSet().unionAndStore(key1, key2, destKey);
+        return template(key1, key2, destKey).opsForSet().unionAndStore(key1, key2, destKey);
     }
 
     /**
@@ -781,7 +1553,7 @@ public class RedisService {
      * @return
      */
     public long unionAndStore(String key, Collection keys, String destKey) {
-        return redisTemplate.opsForSet().unionAndStore(key, keys, destKey);
+        return template(destKey, keys, key).opsForSet().unionAndStore(key, keys, destKey);
     }
 
     /**
@@ -791,7 +1563,7 @@ public class RedisService {
      * @return
      */
     public Set difference(String key1, String key2) {
-        return redisTemplate.opsForSet().difference(key1, key2);
+        return template(key1, key2).opsForSet().difference(key1, key2);
     }
 
     /**
@@ -801,7 +1573,7 @@ public class RedisService {
      * @return
      */
     public Set difference(String key, Collection keys) {
-        return redisTemplate.opsForSet().difference(key, keys);
+        return template(key, keys).opsForSet().difference(key, keys);
     }
 
     /**
@@ -812,7 +1584,7 @@ public class RedisService {
      * @return
      */
     public long differenceAndStore(String key1, String key2, String destKey) {
-        return redisTemplate.opsForSet().differenceAndStore(key1, key2, destKey);
+        return template(key1, key2, destKey).opsForSet().differenceAndStore(key1, key2, destKey);
     }
 
     /**
@@ -823,7 +1595,7 @@ public class RedisService {
      * @return
      */
     public long differenceAndStore(String key, Collection keys, String destKey) {
-        return redisTemplate.opsForSet().differenceAndStore(key, keys, destKey);
+        return template(destKey, keys, key).opsForSet().differenceAndStore(key, keys, destKey);
     }
 
     /**
@@ -833,7 +1605,7 @@ public class RedisService {
      * @return
      */
     public Cursor<Object> sScan(String key, ScanOptions options) {
-        return redisTemplate.opsForSet().scan(key, options);
+        return template(key).opsForSet().scan(key, options);
     }
     /************************************** Set end******************************************/
 
@@ -848,7 +1620,7 @@ public class RedisService {
      * @return 存才返回false，不存在返回true
      */
     public boolean add(String key, Object value, double score) {
-        return redisTemplate.opsForZSet().add(key, value, score);
+        return template(key).opsForZSet().add(key, value, score);
     }
 
     /**
@@ -858,7 +1630,7 @@ public class RedisService {
      * @return 成功添加元素的个数
      */
     public long add(String key, Set<ZSetOperations.TypedTuple<Object>> tuples) {
-        return redisTemplate.opsForZSet().add(key, tuples);
+        return template(key).opsForZSet().add(key, tuples);
     }
 
     /**
@@ -868,7 +1640,7 @@ public class RedisService {
      * @return
      */
     public long zRemove(String key, Object... values) {
-        return redisTemplate.opsForZSet().remove(key, values);
+        return template(key).opsForZSet().remove(key, values);
     }
 
     /**
@@ -879,7 +1651,7 @@ public class RedisService {
      * @return
      */
     public long removeRange(String key, long start, long end) {
-        return redisTemplate.opsForZSet().removeRange(key, start, end);
+        return template(key).opsForZSet().removeRange(key, start, end);
     }
 
     /**
@@ -890,7 +1662,7 @@ public class RedisService {
      * @return
      */
     public long removeRangeByScore(String key, double min, double max) {
-        return redisTemplate.opsForZSet().removeRangeByScore(key, min, max);
+        return template(key).opsForZSet().removeRangeByScore(key, min, max);
     }
 
     /**
@@ -899,7 +1671,7 @@ public class RedisService {
      * @return
      */
     public long zSize(String key) {
-        return redisTemplate.opsForZSet().size(key);
+        return template(key).opsForZSet().size(key);
     }
 
     /**
@@ -908,7 +1680,7 @@ public class RedisService {
      * @return
      */
     public long zCard(String key) {
-        return redisTemplate.opsForZSet().zCard(key);
+        return template(key).opsForZSet().zCard(key);
     }
 
     /**
@@ -918,7 +1690,7 @@ public class RedisService {
      * @return
      */
     public double score(String key, Object value) {
-        return redisTemplate.opsForZSet().score(key, value);
+        return template(key).opsForZSet().score(key, value);
     }
 
     /**
@@ -929,7 +1701,7 @@ public class RedisService {
      * @return
      */
     public double incrementScore(String key, Object value, double delta) {
-        return redisTemplate.opsForZSet().incrementScore(key, value, delta);
+        return template(key).opsForZSet().incrementScore(key, value, delta);
     }
 
     /**
@@ -940,7 +1712,7 @@ public class RedisService {
      * @return
      */
     public long zIntersectAndStore(String key1, String key2, String destKey) {
-        return redisTemplate.opsForZSet().intersectAndStore(key1, key2, destKey);
+        return template(key1, key2, destKey).opsForZSet().intersectAndStore(key1, key2, destKey);
     }
 
     /**
@@ -951,7 +1723,7 @@ public class RedisService {
      * @return
      */
     public long zIntersectAndStore(String key1, Collection keys, String destKey) {
-        return redisTemplate.opsForZSet().intersectAndStore(key1, keys, destKey);
+        return template(destKey, keys, key1).opsForZSet().intersectAndStore(key1, keys, destKey);
     }
 
     /**
@@ -962,7 +1734,7 @@ public class RedisService {
      * @return
      */
     public long zUnionAndStore(String key1, String key2, String destKey) {
-        return redisTemplate.opsForZSet().unionAndStore(key1, key2, destKey);
+        return template(key1, key2, destKey).opsForZSet().unionAndStore(key1, key2, destKey);
     }
 
     /**
@@ -973,7 +1745,7 @@ public class RedisService {
      * @return
      */
     public long zUnionAndStore(String key, Collection keys, String destKey) {
-        return redisTemplate.opsForZSet().unionAndStore(key, keys, destKey);
+        return template(destKey, keys, key).opsForZSet().unionAndStore(key, keys, destKey);
     }
 
     /**
@@ -983,7 +1755,7 @@ public class RedisService {
      * @return
      */
     public long rank(String key, Object value) {
-        return redisTemplate.opsForZSet().rank(key, value);
+        return template(key).opsForZSet().rank(key, value);
     }
 
     /**
@@ -993,7 +1765,7 @@ public class RedisService {
      * @return
      */
     public long reverseRank(String key, Object value) {
-        return redisTemplate.opsForZSet().reverseRank(key, value);
+        return template(key).opsForZSet().reverseRank(key, value);
     }
 
     /**
@@ -1004,7 +1776,7 @@ public class RedisService {
      * @return
      */
     public Set zRange(String key, long start, long end) {
-        return redisTemplate.opsForZSet().range(key, start, end);
+        return template(key).opsForZSet().range(key, start, end);
     }
 
     /**
@@ -1015,7 +1787,7 @@ public class RedisService {
      * @return
      */
     public Set reverseRange(String key, long start, long end) {
-        return redisTemplate.opsForZSet().reverseRange(key, start, end);
+        return template(key).opsForZSet().reverseRange(key, start, end);
     }
 
     /**
@@ -1026,7 +1798,7 @@ public class RedisService {
      * @return
      */
     public Set rangeByScore(String key, double min, double max) {
-        return redisTemplate.opsForZSet().rangeByScore(key, min, max);
+        return template(key).opsForZSet().rangeByScore(key, min, max);
     }
 
     /**
@@ -1039,7 +1811,7 @@ public class RedisService {
      * @return
      */
     public Set rangeByScore(String key, double min, double max, long offset, long count) {
-        return redisTemplate.opsForZSet().rangeByScore(key, min, max, offset, count);
+        return template(key).opsForZSet().rangeByScore(key, min, max, offset, count);
     }
 
     /**
@@ -1050,7 +1822,7 @@ public class RedisService {
      * @return
      */
     public Set reverseRangeByScore(String key, double min, double max) {
-        return redisTemplate.opsForZSet().reverseRangeByScore(key, min, max);
+        return template(key).opsForZSet().reverseRangeByScore(key, min, max);
     }
 
     /**
@@ -1063,7 +1835,7 @@ public class RedisService {
      * @return
      */
     public Set reverseRangeByScore(String key, double min, double max, long offset, long count) {
-        return redisTemplate.opsForZSet().reverseRangeByScore(key, min, max, offset, count);
+        return template(key).opsForZSet().reverseRangeByScore(key, min, max, offset, count);
     }
 
     /**
@@ -1074,7 +1846,7 @@ public class RedisService {
      * @return
      */
     public Set<ZSetOperations.TypedTuple<Object>> rangeWithScores(String key, long start, long end) {
-        return redisTemplate.opsForZSet().rangeWithScores(key, start, end);
+        return template(key).opsForZSet().rangeWithScores(key, start, end);
     }
 
     /**
@@ -1085,7 +1857,7 @@ public class RedisService {
      * @return
      */
     public Set<ZSetOperations.TypedTuple<Object>> reverseRangeWithScores(String key, long start, long end) {
-        return redisTemplate.opsForZSet().reverseRangeWithScores(key, start, end);
+        return template(key).opsForZSet().reverseRangeWithScores(key, start, end);
     }
 
     /**
@@ -1096,7 +1868,7 @@ public class RedisService {
      * @return
      */
     public Set<ZSetOperations.TypedTuple<Object>> rangeByScoreWithScores(String key, double min, double max) {
-        return redisTemplate.opsForZSet().rangeByScoreWithScores(key, min, max);
+        return template(key).opsForZSet().rangeByScoreWithScores(key, min, max);
     }
 
     /**
@@ -1109,7 +1881,7 @@ public class RedisService {
      * @return
      */
     public Set<ZSetOperations.TypedTuple<Object>> rangeByScoreWithScores(String key, double min, double max, long offset, long count) {
-        return redisTemplate.opsForZSet().rangeByScoreWithScores(key, min, max, offset, count);
+        return template(key).opsForZSet().rangeByScoreWithScores(key, min, max, offset, count);
     }
 
     /**
@@ -1120,7 +1892,7 @@ public class RedisService {
      * @return
      */
     public Set<ZSetOperations.TypedTuple<Object>> reverseRangeByScoreWithScores(String key, double min, double max) {
-        return redisTemplate.opsForZSet().reverseRangeByScoreWithScores(key, min, max);
+        return template(key).opsForZSet().reverseRangeByScoreWithScores(key, min, max);
     }
 
     /**
@@ -1133,7 +1905,7 @@ public class RedisService {
      * @return
      */
     public Set<ZSetOperations.TypedTuple<Object>> reverseRangeByScoreWithScores(String key, double min, double max, long offset, long count) {
-        return redisTemplate.opsForZSet().reverseRangeByScoreWithScores(key, min, max, offset, count);
+        return template(key).opsForZSet().reverseRangeByScoreWithScores(key, min, max, offset, count);
     }
 
     /**
@@ -1143,8 +1915,445 @@ public class RedisService {
      * @return
      */
     public Cursor<ZSetOperations.TypedTuple<Object>> zScan(String key, ScanOptions options) {
-        return redisTemplate.opsForZSet().scan(key, options);
+        return template(key).opsForZSet().scan(key, options);
     }
 
     /************************************** ZSet end******************************************/
+
+
+
+    /************************************** Geo start******************************************/
+    /**
+     * 添加地理位置
+     * @param key
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param member
+     * @return 新增的元素个数
+     */
+    public long geoAdd(String key, double longitude, double latitude, Object member) {
+        return template(key).opsForGeo().add(key, new Point(longitude, latitude), member);
+    }
+
+    /**
+     * 批量添加地理位置，每batchSize个元素合并为一条GEOADD，所有命令通过pipeline发送
+     * @param key
+     * @param locations 元素与坐标
+     * @param batchSize
+     */
+    public void geoAdd(String key, Map<Object, Point> locations, int batchSize) {
+        if (CollectionUtils.isEmpty(locations)) {
+            return;
+        }
+        template(key).executePipelined(new SessionCallback<Object>() {
+            @Override
+            public Object execute(RedisOperations operations) throws DataAccessException {
+                Map<Object, Point> batch = new HashMap<>(Math.min(batchSize, locations.size()) * 2);
+                Iterator<Map.Entry<Object, Point>> iterator = locations.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Object, Point> entry = iterator.next();
+                    batch.put(entry.getKey(), entry.getValue());
+                    if (batch.size() >= batchSize || !iterator.hasNext()) {
+                        operations.opsForGeo().add(key, batch);
+                        batch = new HashMap<>(batch.size() * 2);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 获取元素坐标
+     * @param key
+     * @param members
+     * @return 与members顺序一致，不存在的元素为null
+     */
+    public List<Point> geoPos(String key, Object... members) {
+        return template(key).opsForGeo().position(key, members);
+    }
+
+    /**
+     * 获取两个元素之间的距离(米)
+     * @param key
+     * @param member1
+     * @param member2
+     * @return 任一元素不存在返回null
+     */
+    public Distance geoDist(String key, Object member1, Object member2) {
+        return template(key).opsForGeo().distance(key, member1, member2, Metrics.METERS);
+    }
+
+    /**
+     * 以坐标为中心按半径搜索(GEOSEARCH，需要Redis 6.2+)，结果按距离升序并包含距离
+     * @param key
+     * @param longitude
+     * @param latitude
+     * @param radiusMeters 半径(米)
+     * @param limit 最多返回个数
+     * @return
+     */
+    public GeoResults<RedisGeoCommands.GeoLocation<Object>> geoSearch(String key, double longitude, double latitude, double radiusMeters, long limit) {
+        return template(key).opsForGeo().search(key, GeoReference.fromCoordinate(longitude, latitude),
+                new Distance(radiusMeters, Metrics.METERS), nearestArgs(limit));
+    }
+
+    /**
+     * 以已有元素为中心按半径搜索(GEOSEARCH，需要Redis 6.2+)，结果按距离升序并包含距离
+     * @param key
+     * @param member
+     * @param radiusMeters 半径(米)
+     * @param limit 最多返回个数
+     * @return
+     */
+    public GeoResults<RedisGeoCommands.GeoLocation<Object>> geoSearch(String key, Object member, double radiusMeters, long limit) {
+        return template(key).opsForGeo().search(key, GeoReference.fromMember(member),
+                new Distance(radiusMeters, Metrics.METERS), nearestArgs(limit));
+    }
+
+    private static RedisGeoCommands.GeoSearchCommandArgs nearestArgs(long limit) {
+        return RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs().includeDistance().includeCoordinates().sortAscending().limit(limit);
+    }
+    /************************************** Geo end******************************************/
+
+
+
+
+    /************************************** HyperLogLog start******************************************/
+    /**
+     * 向HyperLogLog添加元素
+     * @param key
+     * @param values
+     * @return 基数估算值发生变化返回1，否则返回0
+     */
+    public long pfAdd(String key, Object... values) {
+        return template(key).opsForHyperLogLog().add(key, values);
+    }
+
+    /**
+     * 通过pipeline向多个HyperLogLog批量添加元素
+     * @param values key与待添加元素
+     */
+    public void pfAddAll(Map<String, ? extends Collection<?>> values) {
+        for (Map.Entry<RedisTemplate, List<String>> group : groupByTemplate(values.keySet()).entrySet()) {
+            group.getKey().executePipelined(new SessionCallback<Object>() {
+                @Override
+                public Object execute(RedisOperations operations) throws DataAccessException {
+                    for (String key : group.getValue()) {
+                        operations.opsForHyperLogLog().add(key, values.get(key).toArray());
+                    }
+                    return null;
+                }
+            });
+        }
+    }
+
+    /**
+     * 获取基数估算值，多个key时返回并集的基数
+     * @param keys
+     * @return
+     */
+    public long pfCount(String... keys) {
+        return template(Arrays.asList(keys)).opsForHyperLogLog().size(keys);
+    }
+
+    /**
+     * 合并多个HyperLogLog到目标key
+     * @param destKey
+     * @param sourceKeys
+     */
+    public void pfMerge(String destKey, String... sourceKeys) {
+        template(destKey, sourceKeys).opsForHyperLogLog().union(destKey, sourceKeys);
+    }
+
+    /**
+     * 获取最近days天(含date当天)按天分key的HyperLogLog并集基数，如最近7天UV
+     * @param prefix key前缀，按天的key为 prefix:yyyyMMdd
+     * @param date
+     * @param days
+     * @return
+     */
+    public long pfCountLastDays(String prefix, LocalDate date, int days) {
+        return pfCount(dailyKeys(prefix, date, days));
+    }
+    /************************************** HyperLogLog end******************************************/
+
+
+
+    /************************************** Bitmap start******************************************/
+    /**
+     * 设置位的值(SETBIT)
+     * @param key
+     * @param offset
+     * @param value
+     * @return 原来的值
+     */
+    public boolean setBit(String key, long offset, boolean value) {
+        return template(key).opsForValue().setBit(key, offset, value);
+    }
+
+    /**
+     * 获取位的值(GETBIT)
+     * @param key
+     * @param offset
+     * @return
+     */
+    public boolean getBit(String key, long offset) {
+        return template(key).opsForValue().getBit(key, offset);
+    }
+
+    /**
+     * 通过pipeline批量设置位
+     * @param key
+     * @param offsets
+     * @param value
+     */
+    public void setBits(String key, long[] offsets, boolean value) {
+        final byte[] rawKey = rawKey(key);
+        template(key).executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                connection.stringCommands().setBit(rawKey, offset, value);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 通过pipeline批量获取位
+     * @param key
+     * @param offsets
+     * @return 与offsets顺序一致
+     */
+    public boolean[] getBits(String key, long[] offsets) {
+        final byte[] rawKey = rawKey(key);
+        List<Object> values = template(key).executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                connection.stringCommands().getBit(rawKey, offset);
+            }
+            return null;
+        });
+        boolean[] result = new boolean[offsets.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Boolean.TRUE.equals(values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * 统计值为1的位数(BITCOUNT)
+     * @param key
+     * @return
+     */
+    public long bitCount(String key) {
+        final byte[] rawKey = rawKey(key);
+        Long count = (Long) template(key).execute((RedisCallback<Long>) connection -> connection.stringCommands().bitCount(rawKey));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 统计指定字节范围内值为1的位数(BITCOUNT start end)
+     * @param key
+     * @param start 起始字节
+     * @param end 结束字节
+     * @return
+     */
+    public long bitCount(String key, long start, long end) {
+        final byte[] rawKey = rawKey(key);
+        Long count = (Long) template(key).execute((RedisCallback<Long>) connection -> connection.stringCommands().bitCount(rawKey, start, end));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 对多个bitmap做位运算并存储到目标key(BITOP)
+     * @param op AND、OR、XOR、NOT
+     * @param destKey
+     * @param keys
+     * @return 目标key的字节长度
+     */
+    public long bitOp(RedisStringCommands.BitOperation op, String destKey, String... keys) {
+        final byte[] rawDestKey = rawKey(destKey);
+        final byte[][] rawKeys = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            rawKeys[i] = rawKey(keys[i]);
+        }
+        Long length = (Long) template(destKey, keys).execute((RedisCallback<Long>) connection -> connection.stringCommands().bitOp(op, rawDestKey, rawKeys));
+        return length == null ? 0 : length;
+    }
+
+    /**
+     * 对bitmap执行多个子命令(BITFIELD)
+     * @param key
+     * @param subCommands
+     * @return
+     */
+    public List<Long> bitField(String key, BitFieldSubCommands subCommands) {
+        return template(key).opsForValue().bitField(key, subCommands);
+    }
+
+    /**
+     * 统计最近days天(含date当天)按天分key的bitmap中至少有一天为1的位数，如最近7天活跃用户数
+     * @param prefix key前缀，按天的key为 prefix:yyyyMMdd
+     * @param date
+     * @param days 小于等于0时返回0
+     * @param destKey 存放OR结果的key
+     * @param timeout destKey过期时间(秒)，小于等于0表示不设置
+     * @return
+     */
+    public long bitCountLastDays(String prefix, LocalDate date, int days, String destKey, long timeout) {
+        if (days <= 0) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(days + 1);
+        keys.add(destKey);
+        keys.addAll(Arrays.asList(dailyKeys(prefix, date, days)));
+        Long count = (Long) template(keys).execute(BIT_COUNT_OR_SCRIPT, SCRIPT_ARGS_SERIALIZER, SCRIPT_RESULT_SERIALIZER,
+                keys, String.valueOf(timeout));
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * 按天分key: prefix:yyyyMMdd
+     * @param prefix
+     * @param date
+     * @return
+     */
+    public static String dailyKey(String prefix, LocalDate date) {
+        return prefix + SEPARATOR + date.format(DAY_FORMATTER);
+    }
+
+    /**
+     * 最近days天(含date当天)的按天key
+     * @param prefix
+     * @param date
+     * @param days
+     * @return
+     */
+    public static String[] dailyKeys(String prefix, LocalDate date, int days) {
+        String[] keys = new String[days];
+        for (int i = 0; i < days; i++) {
+            keys[i] = dailyKey(prefix, date.minusDays(i));
+        }
+        return keys;
+    }
+    /************************************** Bitmap end******************************************/
+
+
+
+    /************************************** Script start******************************************/
+    /**
+     * 注册Lua脚本
+     * @param name
+     * @param script
+     */
+    public void registerScript(String name, String script) {
+        redisScriptRegistry.register(name, script);
+    }
+
+    /**
+     * 执行已注册的Lua脚本(EVALSHA)，参数与返回值使用值序列化器；客户端分片时在keys所在的节点执行，keys须位于同一节点
+     * @param name 脚本名
+     * @param resultType 返回类型(Long、Boolean、List、Object等)
+     * @param keys
+     * @param args
+     * @return
+     */
+    public <T> T execute(String name, Class<T> resultType, List<String> keys, Object... args) {
+        return redisScriptRegistry.execute(template(keys), name, resultType, keys, args);
+    }
+
+    /**
+     * 执行已注册的Lua脚本(EVALSHA)，参数与返回值按字符串编码；客户端分片时在keys所在的节点执行，keys须位于同一节点
+     * @param name 脚本名
+     * @param resultType 返回类型(Long、Boolean、List、String等)
+     * @param keys
+     * @param args
+     * @return
+     */
+    public <T> T executeWithStringArgs(String name, Class<T> resultType, List<String> keys, String... args) {
+        return redisScriptRegistry.executeWithStringArgs(template(keys), name, resultType, keys, args);
+    }
+    /************************************** Script end******************************************/
+
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    /**
+     * key所在节点的模板，未配置分片时为redisTemplate；迁移窗口内先把仍在旧节点上的key迁移过来，见RedisShardRouter.templateFor
+     */
+    private RedisTemplate template(String key) {
+        return redisShardRouter == null ? redisTemplate : redisShardRouter.templateFor(key);
+    }
+
+    /**
+     * 超时执行器传入的模板为默认节点，分片时替换为key所在节点
+     */
+    private RedisTemplate template(RedisTemplate template, String key) {
+        return redisShardRouter == null ? template : redisShardRouter.templateFor(key);
+    }
+
+    private RedisTemplate template(String key, String... otherKeys) {
+        return template(key, Collections.emptyList(), otherKeys);
+    }
+
+    private RedisTemplate template(String key, Collection<String> otherKeys, String... moreKeys) {
+        if (redisShardRouter == null) {
+            return redisTemplate;
+        }
+        List<String> keys = new ArrayList<>(otherKeys.size() + moreKeys.length + 1);
+        keys.add(key);
+        keys.addAll(otherKeys);
+        keys.addAll(Arrays.asList(moreKeys));
+        return template(keys);
+    }
+
+    /**
+     * 多key命令的所有key必须位于同一节点(与Redis Cluster的CROSSSLOT限制一致)，可用hash tag({...})将相关key固定到同一节点；
+     * 迁移窗口内先迁移各个key
+     */
+    private RedisTemplate template(Collection<String> keys) {
+        if (redisShardRouter == null || CollectionUtils.isEmpty(keys)) {
+            return redisTemplate;
+        }
+        RedisShardRouter.Node node = null;
+        for (String key : keys) {
+            RedisShardRouter.Node keyNode = redisShardRouter.nodeFor(key);
+            if (node != null && keyNode != node) {
+                throw new InvalidDataAccessApiUsageException("keys in multi-key command map to different redis shards, use hash tags to co-locate them : " + keys);
+            }
+            node = keyNode;
+        }
+        for (String key : keys) {
+            redisShardRouter.migrate(key);
+        }
+        return node.getRedisTemplate();
+    }
+
+    /**
+     * 所有节点的模板，用于SCAN等需要遍历全部key的操作
+     */
+    private List<RedisTemplate> templates() {
+        if (redisShardRouter == null) {
+            return Collections.singletonList(redisTemplate);
+        }
+        List<RedisTemplate> templates = new ArrayList<>();
+        for (RedisShardRouter.Node node : redisShardRouter.getNodes()) {
+            templates.add(node.getRedisTemplate());
+        }
+        return templates;
+    }
+
+    /**
+     * 按节点分组，用于批量pipeline
+     */
+    private Map<RedisTemplate, List<String>> groupByTemplate(Collection<String> keys) {
+        if (redisShardRouter == null) {
+            return Collections.singletonMap(redisTemplate, new ArrayList<>(keys));
+        }
+        Map<RedisTemplate, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(redisShardRouter.templateFor(key), t -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
 }
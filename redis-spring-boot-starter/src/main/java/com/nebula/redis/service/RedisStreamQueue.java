@@ -0,0 +1,343 @@
+package com.nebula.redis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Description 基于Redis Stream的可靠队列，支持消费组、批量读取、批量确认以及宕机消费者的消息回收(至少一次语义)
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisStreamQueue {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisStreamQueue.class);
+
+    /**
+     * 消息体在stream记录中的字段名
+     */
+    public static final String PAYLOAD_FIELD = "payload";
+
+    private static final byte[] MAXLEN = "MAXLEN".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] APPROXIMATE = "~".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] AUTO_ID = "*".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String streamKey;
+
+    private final String group;
+
+    /**
+     * 每次XREADGROUP读取的最大条数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 无消息时XREADGROUP的阻塞时间
+     */
+    private Duration blockTimeout = Duration.ofSeconds(2);
+
+    /**
+     * pending消息空闲超过该时间视为消费者宕机，由其他消费者回收
+     */
+    private Duration claimIdleTime = Duration.ofMinutes(5);
+
+    /**
+     * 回收任务执行间隔
+     */
+    private Duration claimInterval = Duration.ofSeconds(30);
+
+    /**
+     * stream近似最大长度，小于等于0表示不裁剪
+     */
+    private long maxLength = 0;
+
+    private ExecutorService consumerExecutor;
+
+    private ScheduledExecutorService claimExecutor;
+
+    private volatile boolean running = false;
+
+    public RedisStreamQueue(RedisTemplate<String, Object> redisTemplate, String streamKey, String group) {
+        this.redisTemplate = redisTemplate;
+        this.streamKey = streamKey;
+        this.group = group;
+    }
+
+    /**
+     * 消息批处理器，正常返回则整批确认，抛出异常则不确认，等待回收后重新投递
+     */
+    public interface BatchHandler {
+        void handle(List<Object> messages) throws Exception;
+    }
+
+    /**
+     * 发送一条消息
+     * @param message
+     * @return 消息id
+     */
+    @SuppressWarnings("unchecked")
+    public String send(Object message) {
+        if (maxLength <= 0) {
+            RecordId recordId = redisTemplate.opsForStream().add(streamKey, Collections.singletonMap(PAYLOAD_FIELD, message));
+            return recordId == null ? null : recordId.getValue();
+        }
+        final byte[] rawKey = rawKey();
+        final byte[] rawField = ((RedisSerializer<String>) redisTemplate.getHashKeySerializer()).serialize(PAYLOAD_FIELD);
+        final byte[] rawValue = ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(message);
+        Object recordId = redisTemplate.execute((RedisCallback<Object>) connection -> xAddTrimmed(connection, rawKey, rawField, rawValue));
+        if (recordId instanceof byte[]) {
+            return new String((byte[]) recordId, StandardCharsets.UTF_8);
+        }
+        return recordId == null ? null : recordId.toString();
+    }
+
+    /**
+     * 通过pipeline批量发送消息
+     * @param messages
+     */
+    @SuppressWarnings("unchecked")
+    public void sendAll(Collection<?> messages) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+        final byte[] rawKey = rawKey();
+        final byte[] rawField = ((RedisSerializer<String>) redisTemplate.getHashKeySerializer()).serialize(PAYLOAD_FIELD);
+        final RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Object message : messages) {
+                byte[] rawValue = valueSerializer.serialize(message);
+                if (maxLength > 0) {
+                    xAddTrimmed(connection, rawKey, rawField, rawValue);
+                } else {
+                    connection.streamCommands().xAdd(rawKey, Collections.singletonMap(rawField, rawValue));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 创建消费组(stream不存在时一并创建)，消费组已存在时忽略
+     */
+    public void createGroupIfAbsent() {
+        final byte[] rawKey = rawKey();
+        try {
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    connection.streamCommands().xGroupCreate(rawKey, group, ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            if (!isBusyGroup(e)) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 启动消费者
+     * @param consumerPrefix 消费者名称前缀，需保证在不同实例间唯一(如使用主机名+进程号)
+     * @param consumers 消费线程数
+     * @param handler
+     */
+    public synchronized void start(String consumerPrefix, int consumers, BatchHandler handler) {
+        if (running) {
+            return;
+        }
+        createGroupIfAbsent();
+        running = true;
+        AtomicInteger index = new AtomicInteger();
+        consumerExecutor = Executors.newFixedThreadPool(consumers, r -> {
+            Thread thread = new Thread(r, "redis-stream-" + streamKey + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < consumers; i++) {
+            String consumerName = consumerPrefix + "-" + i;
+            consumerExecutor.execute(() -> consumeLoop(consumerName, handler));
+        }
+        String claimer = consumerPrefix + "-claimer";
+        claimExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-stream-claim-" + streamKey);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = claimInterval.toMillis();
+        claimExecutor.scheduleWithFixedDelay(() -> reclaim(claimer, handler), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 停止消费者，未确认的消息由其他消费者回收
+     */
+    public synchronized void stop() {
+        running = false;
+        if (consumerExecutor != null) {
+            consumerExecutor.shutdownNow();
+        }
+        if (claimExecutor != null) {
+            claimExecutor.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void consumeLoop(String consumerName, BatchHandler handler) {
+        Consumer consumer = Consumer.from(group, consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(batchSize).block(blockTimeout);
+        StreamOffset<String> offset = StreamOffset.create(streamKey, ReadOffset.lastConsumed());
+        while (running && !Thread.currentThread().isInterrupted()) {
+            try {
+                List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(consumer, options, offset);
+                if (records != null && !records.isEmpty()) {
+                    dispatch(records, handler);
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                logger.error("redis stream consume error, stream : {}, consumer : {}", streamKey, consumerName, e);
+                sleepQuietly(blockTimeout.toMillis());
+            }
+        }
+    }
+
+    /**
+     * 按id顺序分页遍历整个pending列表，回收空闲超时的消息并重新处理
+     */
+    private void reclaim(String claimer, BatchHandler handler) {
+        try {
+            Range<String> range = Range.unbounded();
+            while (running) {
+                PendingMessages pending = redisTemplate.opsForStream().pending(streamKey, group, range, batchSize);
+                if (pending == null || pending.isEmpty()) {
+                    return;
+                }
+                List<RecordId> idle = new ArrayList<>();
+                RecordId last = null;
+                for (PendingMessage message : pending) {
+                    last = message.getId();
+                    if (message.getElapsedTimeSinceLastDelivery().compareTo(claimIdleTime) >= 0) {
+                        idle.add(message.getId());
+                    }
+                }
+                if (!idle.isEmpty()) {
+                    List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream().claim(streamKey, group, claimer,
+                            RedisStreamCommands.XClaimOptions.minIdle(claimIdleTime).ids(idle.toArray(new RecordId[0])));
+                    if (claimed != null && !claimed.isEmpty()) {
+                        logger.warn("redis stream reclaim {} idle messages, stream : {}", claimed.size(), streamKey);
+                        dispatch(claimed, handler);
+                    }
+                }
+                if (pending.size() < batchSize) {
+                    return;
+                }
+                range = Range.rightUnbounded(Range.Bound.inclusive(nextId(last)));
+            }
+        } catch (Exception e) {
+            logger.error("redis stream reclaim error, stream : {}", streamKey, e);
+        }
+    }
+
+    private void dispatch(List<MapRecord<String, Object, Object>> records, BatchHandler handler) throws Exception {
+        List<Object> messages = new ArrayList<>(records.size());
+        RecordId[] ids = new RecordId[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            MapRecord<String, Object, Object> record = records.get(i);
+            messages.add(record.getValue().get(PAYLOAD_FIELD));
+            ids[i] = record.getId();
+        }
+        handler.handle(messages);
+        redisTemplate.opsForStream().acknowledge(streamKey, group, ids);
+    }
+
+    /**
+     * XADD key MAXLEN ~ maxLength * field value，追加与近似裁剪在同一条命令中完成
+     */
+    private Object xAddTrimmed(RedisConnection connection, byte[] rawKey, byte[] rawField, byte[] rawValue) {
+        return connection.execute("XADD", rawKey, MAXLEN, APPROXIMATE,
+                String.valueOf(maxLength).getBytes(StandardCharsets.UTF_8), AUTO_ID, rawField, rawValue);
+    }
+
+    /**
+     * 紧随给定id之后的最小id，用于pending列表分页(兼容不支持排他区间的Redis版本)
+     */
+    private static String nextId(RecordId id) {
+        return id.getTimestamp() + "-" + (id.getSequence() + 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey() {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(streamKey);
+    }
+
+    private static boolean isBusyGroup(Throwable e) {
+        while (e != null) {
+            if (e.getMessage() != null && e.getMessage().contains("BUSYGROUP")) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getStreamKey() {
+        return streamKey;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setBlockTimeout(Duration blockTimeout) {
+        this.blockTimeout = blockTimeout;
+    }
+
+    public void setClaimIdleTime(Duration claimIdleTime) {
+        this.claimIdleTime = claimIdleTime;
+    }
+
+    public void setClaimInterval(Duration claimInterval) {
+        this.claimInterval = claimInterval;
+    }
+
+    public void setMaxLength(long maxLength) {
+        this.maxLength = maxLength;
+    }
+}
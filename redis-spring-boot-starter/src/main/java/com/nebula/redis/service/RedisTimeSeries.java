@@ -0,0 +1,172 @@
+package com.nebula.redis.service;
+
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Description 基于有序集合的时间序列，score为时间戳(毫秒)，成员为 值:时间戳:序号。
+ * 追加、按保留时长/最大点数裁剪、读取窗口并按时间桶降采样在一次Lua脚本调用中原子完成，降采样在服务端进行以减少返回数据量
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisTimeSeries {
+
+    public enum Aggregation {
+        AVG, SUM, MIN, MAX, COUNT, LAST
+    }
+
+    /**
+     * ARGV: 追加时间戳(为空则不追加), 成员, 保留时长(毫秒), 最大点数, 读取起始, 读取结束(为空则不读取), 桶大小(毫秒), 聚合方式
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCRIPT = new DefaultRedisScript<>(
+            "local key = KEYS[1] " +
+            "if ARGV[1] ~= '' then " +
+            "  local ts = tonumber(ARGV[1]) " +
+            "  redis.call('ZADD', key, ts, ARGV[2]) " +
+            "  local retention = tonumber(ARGV[3]) " +
+            "  if retention > 0 then " +
+            "    redis.call('ZREMRANGEBYSCORE', key, '-inf', '(' .. string.format('%d', ts - retention)) " +
+            "    redis.call('PEXPIRE', key, retention) " +
+            "  end " +
+            "  local maxPoints = tonumber(ARGV[4]) " +
+            "  if maxPoints > 0 then redis.call('ZREMRANGEBYRANK', key, 0, -maxPoints - 1) end " +
+            "end " +
+            "local result = {} " +
+            "if ARGV[6] == '' then return result end " +
+            "local items = redis.call('ZRANGEBYSCORE', key, ARGV[5], ARGV[6], 'WITHSCORES') " +
+            "local bucket = tonumber(ARGV[7]) " +
+            "if bucket <= 0 then bucket = 1 end " +
+            "local agg = ARGV[8] " +
+            "local cur, acc, cnt, mn, mx, last = nil, 0, 0, 0, 0, 0 " +
+            "local function emit() " +
+            "  if cur == nil then return end " +
+            "  local v = last " +
+            "  if agg == 'AVG' then v = acc / cnt elseif agg == 'SUM' then v = acc " +
+            "  elseif agg == 'MIN' then v = mn elseif agg == 'MAX' then v = mx elseif agg == 'COUNT' then v = cnt end " +
+            "  table.insert(result, string.format('%d', cur)) " +
+            "  table.insert(result, tostring(v)) " +
+            "end " +
+            "for i = 1, #items, 2 do " +
+            "  local v = tonumber(string.match(items[i], '^([^:]+)')) " +
+            "  local ts = tonumber(items[i + 1]) " +
+            "  local b = ts - (ts % bucket) " +
+            "  if b ~= cur then emit() cur = b acc = 0 cnt = 0 mn = v mx = v end " +
+            "  acc = acc + v cnt = cnt + 1 last = v " +
+            "  if v < mn then mn = v end " +
+            "  if v > mx then mx = v end " +
+            "end " +
+            "emit() " +
+            "return result", List.class);
+
+    private static final StringRedisSerializer STRING_SERIALIZER = new StringRedisSerializer();
+
+    private static final String SEPARATOR = ":";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 保证同一毫秒写入的相同值成员不重复
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final String node = Long.toString(System.nanoTime() & 0xffffff, 36);
+
+    public RedisTimeSeries(RedisTemplate<String, Object> redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public static class DataPoint {
+        private final long timestamp;
+        private final double value;
+
+        public DataPoint(long timestamp, double value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return timestamp + "=" + value;
+        }
+    }
+
+    /**
+     * 追加数据点并裁剪过期数据
+     * @param key
+     * @param timestamp 毫秒
+     * @param value
+     * @param retentionMillis 保留时长，小于等于0表示不按时间裁剪
+     * @param maxPoints 最大点数，小于等于0表示不限制
+     */
+    public void append(String key, long timestamp, double value, long retentionMillis, long maxPoints) {
+        execute(key, String.valueOf(timestamp), member(timestamp, value), retentionMillis, maxPoints, 0, null, 0, Aggregation.LAST);
+    }
+
+    /**
+     * 读取[from, to]窗口内的数据并按bucketMillis降采样
+     * @param key
+     * @param from
+     * @param to
+     * @param bucketMillis 桶大小，小于等于0表示不降采样
+     * @param aggregation
+     * @return
+     */
+    public List<DataPoint> range(String key, long from, long to, long bucketMillis, Aggregation aggregation) {
+        return execute(key, "", "", 0, 0, from, to, bucketMillis, aggregation);
+    }
+
+    /**
+     * 追加数据点、裁剪过期数据并读取最近windowMillis内的降采样数据，一次调用完成
+     * @param key
+     * @param timestamp
+     * @param value
+     * @param retentionMillis
+     * @param maxPoints
+     * @param windowMillis
+     * @param bucketMillis
+     * @param aggregation
+     * @return
+     */
+    public List<DataPoint> appendAndRange(String key, long timestamp, double value, long retentionMillis, long maxPoints,
+                                          long windowMillis, long bucketMillis, Aggregation aggregation) {
+        return execute(key, String.valueOf(timestamp), member(timestamp, value), retentionMillis, maxPoints,
+                timestamp - windowMillis, timestamp, bucketMillis, aggregation);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<DataPoint> execute(String key, String timestamp, String member, long retentionMillis, long maxPoints,
+                                    long from, Long to, long bucketMillis, Aggregation aggregation) {
+        List<Object> result = redisTemplate.execute(SCRIPT, STRING_SERIALIZER, (RedisSerializer) STRING_SERIALIZER,
+                Collections.singletonList(key), timestamp, member, String.valueOf(retentionMillis), String.valueOf(maxPoints),
+                String.valueOf(from), to == null ? "" : String.valueOf(to), String.valueOf(bucketMillis), aggregation.name());
+        if (result == null || result.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<DataPoint> points = new ArrayList<>(result.size() / 2);
+        for (int i = 0; i + 1 < result.size(); i += 2) {
+            points.add(new DataPoint(Long.parseLong(String.valueOf(result.get(i))), Double.parseDouble(String.valueOf(result.get(i + 1)))));
+        }
+        return points;
+    }
+
+    private String member(long timestamp, double value) {
+        return value + SEPARATOR + timestamp + SEPARATOR + node + Long.toString(sequence.incrementAndGet(), 36);
+    }
+}
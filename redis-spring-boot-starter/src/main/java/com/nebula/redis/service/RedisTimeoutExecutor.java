@@ -0,0 +1,373 @@
+package com.nebula.redis.service;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * @Description 按调用或按操作类别设置超时预算，不再共用连接工厂的全局命令超时；超时抛出QueryTimeoutException。
+ * 对延迟敏感的读操作可开启对冲读:主请求在近期延迟的指定百分位内未返回时，向对冲模板(必须是副本等另一节点的连接)再发一次相同读请求，取先返回的结果。
+ * 线程用尽(通常是Redis变慢、超时的调用仍占着线程)时立即拒绝并抛出QueryTimeoutException，不在调用线程无预算地执行
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisTimeoutExecutor implements DisposableBean {
+
+    /**
+     * 操作类别，各类别可配置不同的超时预算
+     */
+    public enum Family {
+        READ, WRITE, BULK
+    }
+
+    /**
+     * 未设置超时预算时对冲读的等待上限，实际由全局命令超时兜底
+     */
+    private static final long UNBOUNDED_NANOS = TimeUnit.DAYS.toNanos(1);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 对冲读使用的模板，指向只读副本等另一节点；为null时不对冲
+     */
+    private final RedisTemplate<String, Object> hedgeTemplate;
+
+    /**
+     * 由本类创建的对冲连接工厂，销毁时一并关闭
+     */
+    private final RedisConnectionFactory ownedHedgeConnectionFactory;
+
+    private final long[] familyTimeoutMillis = new long[Family.values().length];
+
+    private final ThreadPoolExecutor executor;
+
+    private final LatencyTracker latencyTracker;
+
+    private final long minHedgeDelayNanos;
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param redisTemplate
+     * @param hedgeTemplate 对冲读模板，为null表示不开启对冲读；不能与redisTemplate使用同一个连接工厂
+     * @param threads 执行带超时调用的最大线程数，线程用尽时直接拒绝
+     * @param hedgePercentile 对冲延迟取近期主请求延迟的百分位，如95
+     * @param minHedgeDelayMillis 对冲延迟下限
+     */
+    public RedisTimeoutExecutor(RedisTemplate<String, Object> redisTemplate, RedisTemplate<String, Object> hedgeTemplate,
+                                int threads, double hedgePercentile, long minHedgeDelayMillis) {
+        this(redisTemplate, hedgeTemplate, null, threads, hedgePercentile, minHedgeDelayMillis);
+    }
+
+    /**
+     * 以副本连接工厂开启对冲读，对冲模板复制redisTemplate的序列化配置，连接工厂随本对象销毁而关闭
+     * @param redisTemplate
+     * @param hedgeConnectionFactory 已初始化的副本连接工厂
+     * @param threads
+     * @param hedgePercentile
+     * @param minHedgeDelayMillis
+     */
+    public RedisTimeoutExecutor(RedisTemplate<String, Object> redisTemplate, RedisConnectionFactory hedgeConnectionFactory,
+                                int threads, double hedgePercentile, long minHedgeDelayMillis) {
+        this(redisTemplate, hedgeTemplate(redisTemplate, hedgeConnectionFactory), hedgeConnectionFactory,
+                threads, hedgePercentile, minHedgeDelayMillis);
+    }
+
+    private RedisTimeoutExecutor(RedisTemplate<String, Object> redisTemplate, RedisTemplate<String, Object> hedgeTemplate,
+                                 RedisConnectionFactory ownedHedgeConnectionFactory, int threads, double hedgePercentile,
+                                 long minHedgeDelayMillis) {
+        if (hedgeTemplate != null && hedgeTemplate.getConnectionFactory() == redisTemplate.getConnectionFactory()) {
+            throw new IllegalArgumentException("Hedge template must use a different connection factory (e.g. a replica)");
+        }
+        this.redisTemplate = redisTemplate;
+        this.hedgeTemplate = hedgeTemplate;
+        this.ownedHedgeConnectionFactory = ownedHedgeConnectionFactory;
+        this.latencyTracker = new LatencyTracker(hedgePercentile);
+        this.minHedgeDelayNanos = TimeUnit.MILLISECONDS.toNanos(minHedgeDelayMillis);
+        AtomicInteger index = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, threads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread thread = new Thread(r, "redis-timeout-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 设置操作类别的超时预算
+     * @param family
+     * @param timeoutMillis 小于等于0表示使用全局命令超时
+     */
+    public void setTimeout(Family family, long timeoutMillis) {
+        familyTimeoutMillis[family.ordinal()] = timeoutMillis;
+    }
+
+    public long getTimeout(Family family) {
+        return familyTimeoutMillis[family.ordinal()];
+    }
+
+    /**
+     * 按类别超时预算执行
+     * @param family
+     * @param action
+     * @param <T>
+     * @return
+     */
+    public <T> T execute(Family family, Function<RedisTemplate<String, Object>, T> action) {
+        return execute(action, getTimeout(family));
+    }
+
+    /**
+     * 在指定超时内执行，超时或线程用尽时抛出QueryTimeoutException(后台命令不会被取消，其结果被丢弃)
+     * @param action
+     * @param timeoutMillis 小于等于0表示直接在调用线程执行
+     * @param <T>
+     * @return
+     */
+    public <T> T execute(Function<RedisTemplate<String, Object>, T> action, long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return action.apply(redisTemplate);
+        }
+        Future<T> future = submit(executor, () -> action.apply(redisTemplate));
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            timeouts.increment();
+            throw new QueryTimeoutException("Redis command timed out after " + timeoutMillis + "ms");
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted while waiting for redis command", e);
+        }
+    }
+
+    /**
+     * 对冲读:主请求超过对冲延迟未返回时，在对冲模板上再发一次相同请求，取先成功返回的结果；只用于幂等的读操作
+     * @param read
+     * @param timeoutMillis 总超时，小于等于0表示使用READ类别的超时预算
+     * @param <T>
+     * @return
+     */
+    public <T> T hedgedRead(Function<RedisTemplate<String, Object>, T> read, long timeoutMillis) {
+        long budget = timeoutMillis > 0 ? timeoutMillis : getTimeout(Family.READ);
+        if (hedgeTemplate == null) {
+            return execute(read, budget);
+        }
+        long start = System.nanoTime();
+        long deadline = start + (budget > 0 ? TimeUnit.MILLISECONDS.toNanos(budget) : UNBOUNDED_NANOS);
+        CompletionService<T> completionService = new ExecutorCompletionService<>(executor);
+        Future<T> primary = submit(completionService, timed(read, redisTemplate));
+        Future<T> hedge = null;
+        RuntimeException failure = null;
+        int pending = 1;
+        try {
+            Future<T> done = completionService.poll(Math.min(hedgeDelayNanos(), deadline - start), TimeUnit.NANOSECONDS);
+            if (done == null && System.nanoTime() < deadline) {
+                try {
+                    hedge = completionService.submit(() -> read.apply(hedgeTemplate));
+                    hedges.increment();
+                    pending++;
+                } catch (RejectedExecutionException e) {
+                    // 线程用尽时不再对冲，继续等待主请求
+                    rejections.increment();
+                }
+            }
+            while (true) {
+                if (done != null) {
+                    pending--;
+                    try {
+                        T result = done.get();
+                        if (done == hedge) {
+                            hedgeWins.increment();
+                        }
+                        return result;
+                    } catch (ExecutionException e) {
+                        failure = translate(e.getCause());
+                    }
+                    if (pending == 0) {
+                        throw failure;
+                    }
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    timeouts.increment();
+                    throw new QueryTimeoutException("Redis hedged read timed out after " + budget + "ms");
+                }
+                done = completionService.poll(remaining, TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("Interrupted while waiting for redis command", e);
+        } finally {
+            primary.cancel(false);
+            if (hedge != null) {
+                hedge.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * 当前对冲延迟(毫秒)
+     * @return
+     */
+    public long getHedgeDelayMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos());
+    }
+
+    /**
+     * 超时次数
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * 发出对冲请求次数
+     */
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+
+    /**
+     * 对冲请求先于主请求返回的次数
+     */
+    public long getHedgeWinCount() {
+        return hedgeWins.sum();
+    }
+
+    /**
+     * 线程用尽被拒绝的次数
+     */
+    public long getRejectionCount() {
+        return rejections.sum();
+    }
+
+    private long hedgeDelayNanos() {
+        return Math.max(minHedgeDelayNanos, latencyTracker.percentile());
+    }
+
+    private <T> Callable<T> timed(Function<RedisTemplate<String, Object>, T> read, RedisTemplate<String, Object> template) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = read.apply(template);
+            latencyTracker.record(System.nanoTime() - start);
+            return result;
+        };
+    }
+
+    private <T> Future<T> submit(ExecutorService executorService, Callable<T> task) {
+        try {
+            return executorService.submit(task);
+        } catch (RejectedExecutionException e) {
+            return reject(e);
+        }
+    }
+
+    private <T> Future<T> submit(CompletionService<T> completionService, Callable<T> task) {
+        try {
+            return completionService.submit(task);
+        } catch (RejectedExecutionException e) {
+            return reject(e);
+        }
+    }
+
+    private <T> Future<T> reject(RejectedExecutionException e) {
+        rejections.increment();
+        throw new QueryTimeoutException("Redis timeout executor saturated, " + executor.getMaximumPoolSize()
+                + " calls in flight", e);
+    }
+
+    private static RedisTemplate<String, Object> hedgeTemplate(RedisTemplate<String, Object> redisTemplate,
+                                                               RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(redisTemplate.getKeySerializer());
+        template.setValueSerializer(redisTemplate.getValueSerializer());
+        template.setHashKeySerializer(redisTemplate.getHashKeySerializer());
+        template.setHashValueSerializer(redisTemplate.getHashValueSerializer());
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static RuntimeException translate(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new RedisSystemException(String.valueOf(cause), cause);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdownNow();
+        if (ownedHedgeConnectionFactory instanceof DisposableBean) {
+            ((DisposableBean) ownedHedgeConnectionFactory).destroy();
+        }
+    }
+
+    /**
+     * 近期延迟采样，定期重新计算百分位，读取百分位无锁
+     */
+    private static class LatencyTracker {
+
+        private static final int SIZE = 1024;
+
+        private static final int RECOMPUTE_MASK = 127;
+
+        private final long[] samples = new long[SIZE];
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final double percentile;
+
+        private volatile long cached;
+
+        private LatencyTracker(double percentile) {
+            this.percentile = Math.min(100, Math.max(0, percentile));
+        }
+
+        private void record(long nanos) {
+            long n = count.getAndIncrement();
+            samples[(int) (n % SIZE)] = nanos;
+            if ((n & RECOMPUTE_MASK) == RECOMPUTE_MASK) {
+                recompute((int) Math.min(n + 1, SIZE));
+            }
+        }
+
+        private void recompute(int size) {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            int index = (int) Math.ceil(percentile / 100 * size) - 1;
+            cached = copy[Math.max(0, Math.min(size - 1, index))];
+        }
+
+        private long percentile() {
+            return cached;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.nebula.redis.shard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * @Description 一致性哈希环，每个节点映射为多个虚拟节点以均衡分布；key中含有{...}时只对花括号内的内容(hash tag)哈希，
+ * 与Redis Cluster规则一致，可将相关key固定到同一节点
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class ConsistentHashRing<T> {
+
+    private final NavigableMap<Long, T> ring = new TreeMap<>();
+
+    private final Map<String, T> nodes;
+
+    /**
+     * @param nodes key为节点名(决定虚拟节点位置，节点名不变则位置不变)，value为节点
+     * @param virtualNodes 每个节点的虚拟节点数
+     */
+    public ConsistentHashRing(Map<String, T> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("consistent hash ring requires at least one node");
+        }
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+        for (Map.Entry<String, T> entry : nodes.entrySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                ring.put(hash((entry.getKey() + "#" + i).getBytes(StandardCharsets.UTF_8), 0, -1), entry.getValue());
+            }
+        }
+    }
+
+    public T nodeFor(byte[] key) {
+        int start = 0;
+        int end = key.length;
+        int open = indexOf(key, (byte) '{', 0);
+        if (open >= 0) {
+            int close = indexOf(key, (byte) '}', open + 1);
+            if (close > open + 1) {
+                start = open + 1;
+                end = close;
+            }
+        }
+        Map.Entry<Long, T> entry = ring.ceilingEntry(hash(key, start, end));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    public T nodeFor(String key) {
+        return nodeFor(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Map<String, T> getNodes() {
+        return nodes;
+    }
+
+    public Collection<T> nodes() {
+        return nodes.values();
+    }
+
+    private static int indexOf(byte[] bytes, byte b, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * FNV-1a后再做一次64位混淆，使相近的输入在环上分散
+     */
+    private static long hash(byte[] bytes, int start, int end) {
+        if (end < 0) {
+            end = bytes.length;
+        }
+        long h = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            h ^= bytes[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,591 @@
+package com.nebula.redis.shard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description 多个独立Redis实例的客户端分片路由:按一致性哈希环选择节点，多key操作按节点分组后并行执行。
+ * 扩缩容时调用rebalance进入迁移窗口:templateFor在返回新节点前先把仍在旧节点上的key同步迁移过来，任意类型的读写都作用于完整的值；
+ * 批量读取在新节点未命中时回读旧节点并异步迁移，删除同时作用于新旧节点；migrate()扫描旧节点迁移归属变化的key，
+ * completeRebalance结束窗口前会先完成迁移，仍有冲突的key时拒绝结束
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisShardRouter implements DisposableBean {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisShardRouter.class);
+
+    private static final int MIGRATE_BATCH_SIZE = 500;
+
+    public static class Node {
+        private final String name;
+        private final RedisConnectionFactory connectionFactory;
+        private final RedisTemplate<String, Object> redisTemplate;
+
+        private Node(String name, RedisConnectionFactory connectionFactory, RedisTemplate<String, Object> redisTemplate) {
+            this.name = name;
+            this.connectionFactory = connectionFactory;
+            this.redisTemplate = redisTemplate;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RedisConnectionFactory getConnectionFactory() {
+            return connectionFactory;
+        }
+
+        public RedisTemplate<String, Object> getRedisTemplate() {
+            return redisTemplate;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * 提供序列化配置的模板
+     */
+    private final RedisTemplate<String, Object> templateConfig;
+
+    private final int virtualNodes;
+
+    private final ExecutorService executor;
+
+    private volatile ConsistentHashRing<Node> ring;
+
+    /**
+     * 迁移窗口内的旧环，不在迁移时为null
+     */
+    private volatile ConsistentHashRing<Node> previousRing;
+
+    /**
+     * 当前迁移窗口内migrate()是否已完成且没有冲突的key
+     */
+    private volatile boolean migrated;
+
+    /**
+     * @param templateConfig 各节点模板复制其序列化配置
+     * @param connectionFactories key为节点名，value为已初始化的连接工厂
+     * @param virtualNodes 每个节点的虚拟节点数
+     * @param threads 多key操作并行执行的线程数
+     */
+    public RedisShardRouter(RedisTemplate<String, Object> templateConfig, Map<String, RedisConnectionFactory> connectionFactories,
+                            int virtualNodes, int threads) {
+        this.templateConfig = templateConfig;
+        this.virtualNodes = virtualNodes;
+        this.ring = new ConsistentHashRing<>(createNodes(connectionFactories, new HashMap<>()), virtualNodes);
+        AtomicInteger index = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1), r -> {
+            Thread thread = new Thread(r, "redis-shard-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public Node nodeFor(String key) {
+        return ring.nodeFor(key);
+    }
+
+    public Node nodeFor(byte[] key) {
+        return ring.nodeFor(key);
+    }
+
+    /**
+     * 迁移窗口内key在旧环上的节点，不在迁移或新旧节点相同时返回null
+     * @param key
+     * @return
+     */
+    public Node previousNodeFor(byte[] key) {
+        ConsistentHashRing<Node> previous = previousRing;
+        if (previous == null) {
+            return null;
+        }
+        Node node = previous.nodeFor(key);
+        return node == ring.nodeFor(key) ? null : node;
+    }
+
+    public Node previousNodeFor(String key) {
+        ConsistentHashRing<Node> previous = previousRing;
+        if (previous == null) {
+            return null;
+        }
+        Node node = previous.nodeFor(key);
+        return node == ring.nodeFor(key) ? null : node;
+    }
+
+    /**
+     * key所在节点的模板，迁移窗口内key归属变化且仍在旧节点上时先同步迁移到新节点
+     * @param key
+     * @return
+     */
+    public RedisTemplate<String, Object> templateFor(String key) {
+        migrate(key);
+        return nodeFor(key).getRedisTemplate();
+    }
+
+    /**
+     * 迁移窗口内key归属变化且仍在旧节点上时，同步迁移到新节点；不在迁移窗口或归属未变化时直接返回。
+     * 对key执行读改写(INCR、HSET、LPUSH、WATCH等)前必须先迁移，否则会在新节点上生成不完整的值
+     * @param key
+     */
+    public void migrate(String key) {
+        Node previous = previousNodeFor(key);
+        if (previous != null) {
+            moveKeys(previous, Collections.singletonList(rawKey(key)), null);
+        }
+    }
+
+    /**
+     * 当前所有节点，迁移窗口内包含旧环上的节点
+     * @return
+     */
+    public Collection<Node> getNodes() {
+        Set<Node> nodes = new LinkedHashSet<>(ring.nodes());
+        ConsistentHashRing<Node> previous = previousRing;
+        if (previous != null) {
+            nodes.addAll(previous.nodes());
+        }
+        return nodes;
+    }
+
+    /**
+     * 当前所有节点的连接工厂，迁移窗口内包含旧环上的节点
+     * @return
+     */
+    public Collection<RedisConnectionFactory> getConnectionFactories() {
+        Collection<Node> nodes = getNodes();
+        List<RedisConnectionFactory> factories = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            factories.add(node.getConnectionFactory());
+        }
+        return factories;
+    }
+
+    public boolean isRebalancing() {
+        return previousRing != null;
+    }
+
+    public boolean hasKey(String key) {
+        return Boolean.TRUE.equals(templateFor(key).hasKey(key));
+    }
+
+    public Object get(String key) {
+        return templateFor(key).opsForValue().get(key);
+    }
+
+    /**
+     * 添加值
+     * @param key
+     * @param value
+     * @param time 过期时间(秒)，小于等于0表示不过期
+     */
+    public void set(String key, Object value, long time) {
+        if (time > 0) {
+            templateFor(key).opsForValue().set(key, value, time, TimeUnit.SECONDS);
+        } else {
+            templateFor(key).opsForValue().set(key, value);
+        }
+    }
+
+    public boolean expire(String key, long time) {
+        return Boolean.TRUE.equals(templateFor(key).expire(key, time, TimeUnit.SECONDS));
+    }
+
+    /**
+     * 批量获取，按节点分组并行执行，迁移窗口内未命中的key回读旧节点
+     * @param keys
+     * @return 与keys顺序一致
+     */
+    public List<Object> multiGet(List<String> keys) {
+        Map<Node, List<String>> groups = groupBy(keys, ring);
+        Map<String, Object> values = new HashMap<>(keys.size() * 2);
+        fanOut(groups, (node, nodeKeys) -> {
+            List<Object> nodeValues = node.getRedisTemplate().opsForValue().multiGet(nodeKeys);
+            synchronized (values) {
+                for (int i = 0; i < nodeKeys.size(); i++) {
+                    values.put(nodeKeys.get(i), nodeValues == null ? null : nodeValues.get(i));
+                }
+            }
+        });
+        if (previousRing != null) {
+            Map<Node, List<String>> misses = new LinkedHashMap<>();
+            for (String key : keys) {
+                Node previous = values.get(key) == null ? previousNodeFor(key) : null;
+                if (previous != null) {
+                    misses.computeIfAbsent(previous, n -> new ArrayList<>()).add(key);
+                }
+            }
+            fanOut(misses, (node, nodeKeys) -> {
+                List<Object> nodeValues = node.getRedisTemplate().opsForValue().multiGet(nodeKeys);
+                List<byte[]> hits = new ArrayList<>();
+                synchronized (values) {
+                    for (int i = 0; nodeValues != null && i < nodeKeys.size(); i++) {
+                        values.put(nodeKeys.get(i), nodeValues.get(i));
+                        if (nodeValues.get(i) != null) {
+                            hits.add(rawKey(nodeKeys.get(i)));
+                        }
+                    }
+                }
+                moveAsync(node, hits);
+            });
+        }
+        List<Object> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            result.add(values.get(key));
+        }
+        return result;
+    }
+
+    /**
+     * 批量设置，按节点分组并行执行
+     * @param map
+     */
+    public void multiSet(Map<String, Object> map) {
+        Map<Node, List<String>> groups = groupBy(map.keySet(), ring);
+        fanOut(groups, (node, nodeKeys) -> {
+            Map<String, Object> nodeMap = new HashMap<>(nodeKeys.size() * 2);
+            for (String key : nodeKeys) {
+                nodeMap.put(key, map.get(key));
+            }
+            node.getRedisTemplate().opsForValue().multiSet(nodeMap);
+        });
+    }
+
+    /**
+     * 批量删除，按节点分组并行执行，迁移窗口内同时删除旧节点上的key
+     * @param keys
+     * @return 删除的key数
+     */
+    public long del(Collection<String> keys) {
+        Map<Node, List<String>> groups = groupBy(keys, ring);
+        ConsistentHashRing<Node> previous = previousRing;
+        if (previous != null) {
+            groupBy(keys, previous).forEach((node, nodeKeys) ->
+                    groups.merge(node, nodeKeys, (a, b) -> {
+                        Set<String> merged = new LinkedHashSet<>(a);
+                        merged.addAll(b);
+                        return new ArrayList<>(merged);
+                    }));
+        }
+        long[] deleted = new long[1];
+        fanOut(groups, (node, nodeKeys) -> {
+            Long count = node.getRedisTemplate().delete(nodeKeys);
+            synchronized (deleted) {
+                deleted[0] += count == null ? 0 : count;
+            }
+        });
+        return deleted[0];
+    }
+
+    /**
+     * 开始迁移窗口:新节点组成新环，同名节点沿用原连接工厂，传入的同名连接工厂不会被使用
+     * @param connectionFactories 新的全部节点
+     */
+    public synchronized void rebalance(Map<String, RedisConnectionFactory> connectionFactories) {
+        if (previousRing != null) {
+            throw new IllegalStateException("previous rebalance has not completed");
+        }
+        Map<String, Node> existing = new HashMap<>(ring.getNodes());
+        ConsistentHashRing<Node> next = new ConsistentHashRing<>(createNodes(connectionFactories, existing), virtualNodes);
+        previousRing = ring;
+        ring = next;
+        migrated = false;
+        logger.info("redis shard rebalance started, nodes : {} -> {}", previousRing.getNodes().keySet(), next.getNodes().keySet());
+    }
+
+    /**
+     * 迁移数据:逐个SCAN旧环上的节点，将归属变化的key迁移到新环上的节点，不在迁移窗口时直接返回。
+     * 新节点上已存在同名的非字符串key时记为冲突，旧节点上的key保留并记录日志，需要处理后再次执行
+     * @return 迁移的key数
+     */
+    public synchronized long migrate() {
+        ConsistentHashRing<Node> previous = previousRing;
+        if (previous == null) {
+            return 0;
+        }
+        LongAdder conflicts = new LongAdder();
+        long moved = 0;
+        for (Node node : previous.nodes()) {
+            RedisConnection connection = node.getConnectionFactory().getConnection();
+            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().count(MIGRATE_BATCH_SIZE).build())) {
+                List<byte[]> keys = new ArrayList<>(MIGRATE_BATCH_SIZE);
+                while (cursor.hasNext()) {
+                    byte[] key = cursor.next();
+                    if (ring.nodeFor(key) != node) {
+                        keys.add(key);
+                    }
+                    if (keys.size() >= MIGRATE_BATCH_SIZE) {
+                        moved += moveKeys(node, keys, conflicts);
+                        keys.clear();
+                    }
+                }
+                moved += moveKeys(node, keys, conflicts);
+            } finally {
+                connection.close();
+            }
+        }
+        migrated = conflicts.sum() == 0;
+        if (migrated) {
+            logger.info("redis shard migrate completed, moved keys : {}", moved);
+        } else {
+            logger.error("redis shard migrate completed with conflicts, moved keys : {}, conflict keys : {}", moved, conflicts.sum());
+        }
+        return moved;
+    }
+
+    /**
+     * 结束迁移窗口，当前窗口尚未完成migrate()时先迁移数据，然后关闭已移除节点的连接工厂；
+     * 仍有冲突的key时抛出IllegalStateException，不结束窗口，避免丢弃旧节点上的数据
+     */
+    public synchronized void completeRebalance() {
+        ConsistentHashRing<Node> previous = previousRing;
+        if (previous == null) {
+            return;
+        }
+        if (!migrated) {
+            migrate();
+        }
+        if (!migrated) {
+            throw new IllegalStateException("redis shard rebalance has conflicting keys on previous nodes, resolve them and migrate again");
+        }
+        previousRing = null;
+        for (Map.Entry<String, Node> entry : previous.getNodes().entrySet()) {
+            if (!ring.getNodes().containsKey(entry.getKey())) {
+                destroyQuietly(entry.getValue());
+            }
+        }
+        logger.info("redis shard rebalance completed, nodes : {}", ring.getNodes().keySet());
+    }
+
+    /**
+     * 将旧节点上的key迁移到其在新环上的节点:旧节点TYPE+DUMP+PTTL，新节点RESTORE(不覆盖)，成功后删除旧节点上的key。
+     * RESTORE返回BUSYKEY时，字符串类型说明新节点已整体写入更新的值，删除旧值；其他类型可能是未迁移时在新节点上生成的不完整值，
+     * 保留旧值并记为冲突，不删除任何数据
+     * @param conflicts 冲突计数，为null时只记录日志
+     * @return 迁移的key数
+     */
+    private long moveKeys(Node from, List<byte[]> keys, LongAdder conflicts) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        RedisConnection source = from.getConnectionFactory().getConnection();
+        try {
+            source.openPipeline();
+            for (byte[] key : keys) {
+                source.keyCommands().type(key);
+                source.keyCommands().dump(key);
+                source.keyCommands().pTtl(key);
+            }
+            List<Object> dumped = closePipeline(source);
+            Map<Node, List<Integer>> targets = new LinkedHashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                Object ttl = dumped.get(i * 3 + 2);
+                // 已过期或已被删除的key跳过
+                if (dumped.get(i * 3 + 1) instanceof byte[] && !(ttl instanceof Number && ((Number) ttl).longValue() == -2)) {
+                    targets.computeIfAbsent(ring.nodeFor(keys.get(i)), n -> new ArrayList<>()).add(i);
+                }
+            }
+            List<byte[]> moved = new ArrayList<>(keys.size());
+            for (Map.Entry<Node, List<Integer>> entry : targets.entrySet()) {
+                if (entry.getKey() == from) {
+                    continue;
+                }
+                RedisConnection target = entry.getKey().getConnectionFactory().getConnection();
+                try {
+                    target.openPipeline();
+                    for (int i : entry.getValue()) {
+                        Object ttl = dumped.get(i * 3 + 2);
+                        long pttl = ttl instanceof Number ? ((Number) ttl).longValue() : -1;
+                        target.keyCommands().restore(keys.get(i), Math.max(pttl, 0), (byte[]) dumped.get(i * 3 + 1), false);
+                    }
+                    List<Object> results = closePipeline(target);
+                    for (int j = 0; j < entry.getValue().size(); j++) {
+                        int i = entry.getValue().get(j);
+                        Object result = results.get(j);
+                        if (!(result instanceof Exception)) {
+                            moved.add(keys.get(i));
+                        } else if (!String.valueOf(((Exception) result).getMessage()).contains("BUSYKEY")) {
+                            logger.warn("redis shard restore error, node : {}", entry.getKey().getName(), (Exception) result);
+                        } else if (DataType.STRING.equals(dumped.get(i * 3))) {
+                            moved.add(keys.get(i));
+                        } else if (conflicts != null) {
+                            conflicts.increment();
+                            logger.error("redis shard move conflict, key exists on both nodes, key : {}, type : {}, nodes : {} -> {}",
+                                    keyString(keys.get(i)), dumped.get(i * 3), from.getName(), entry.getKey().getName());
+                        } else {
+                            // 并发迁移同一个key时后到的一方也会遇到BUSYKEY，旧值由先到的一方删除；真正的冲突由migrate()统计
+                            logger.warn("redis shard move skipped, key exists on both nodes, key : {}, nodes : {} -> {}",
+                                    keyString(keys.get(i)), from.getName(), entry.getKey().getName());
+                        }
+                    }
+                } finally {
+                    target.close();
+                }
+            }
+            if (!moved.isEmpty()) {
+                source.keyCommands().del(moved.toArray(new byte[0][]));
+            }
+            return moved.size();
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * 迁移窗口内在后台将key从旧节点迁移到新环上的节点，用于回读旧节点命中后，不在迁移窗口或归属未变化时忽略
+     * @param key
+     */
+    public void migrateAsync(byte[] key) {
+        Node previous = previousNodeFor(key);
+        if (previous != null) {
+            moveAsync(previous, key);
+        }
+    }
+
+    /**
+     * 回读旧节点命中后在后台迁移，迁移失败不影响读取，由migrate()兜底
+     */
+    private void moveAsync(Node from, byte[] key) {
+        moveAsync(from, Collections.singletonList(key));
+    }
+
+    private void moveAsync(Node from, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    moveKeys(from, keys, null);
+                } catch (Exception e) {
+                    logger.warn("redis shard move keys error, node : {}, keys : {}", from.getName(), keys.size(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("redis shard move keys rejected, node : {}", from.getName());
+        }
+    }
+
+    /**
+     * 单条命令出错时pipeline整体抛出异常，对应位置为异常，其余结果仍可使用
+     */
+    private static List<Object> closePipeline(RedisConnection connection) {
+        try {
+            return connection.closePipeline();
+        } catch (RedisPipelineException e) {
+            return e.getPipelineResult();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) templateConfig.getKeySerializer()).serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private String keyString(byte[] key) {
+        return ((RedisSerializer<String>) templateConfig.getKeySerializer()).deserialize(key);
+    }
+
+    private Map<String, Node> createNodes(Map<String, RedisConnectionFactory> connectionFactories, Map<String, Node> existing) {
+        Map<String, Node> nodes = new LinkedHashMap<>();
+        connectionFactories.forEach((name, factory) -> {
+            Node node = existing.get(name);
+            if (node == null) {
+                RedisTemplate<String, Object> template = new RedisTemplate<>();
+                template.setConnectionFactory(factory);
+                template.setKeySerializer(templateConfig.getKeySerializer());
+                template.setValueSerializer(templateConfig.getValueSerializer());
+                template.setHashKeySerializer(templateConfig.getHashKeySerializer());
+                template.setHashValueSerializer(templateConfig.getHashValueSerializer());
+                template.afterPropertiesSet();
+                node = new Node(name, factory, template);
+            }
+            nodes.put(name, node);
+        });
+        return nodes;
+    }
+
+    private static Map<Node, List<String>> groupBy(Collection<String> keys, ConsistentHashRing<Node> ring) {
+        Map<Node, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(ring.nodeFor(key), n -> new ArrayList<>()).add(key);
+        }
+        return groups;
+    }
+
+    private interface NodeAction {
+        void execute(Node node, List<String> keys);
+    }
+
+    /**
+     * 只有一个分组时在调用线程执行，否则并行执行并等待全部完成
+     */
+    private void fanOut(Map<Node, List<String>> groups, NodeAction action) {
+        if (groups.isEmpty()) {
+            return;
+        }
+        if (groups.size() == 1) {
+            Map.Entry<Node, List<String>> entry = groups.entrySet().iterator().next();
+            action.execute(entry.getKey(), entry.getValue());
+            return;
+        }
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        groups.forEach((node, keys) -> futures.add(CompletableFuture.runAsync(() -> action.execute(node, keys), executor)));
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void destroyQuietly(Node node) {
+        if (node.getConnectionFactory() instanceof DisposableBean) {
+            try {
+                ((DisposableBean) node.getConnectionFactory()).destroy();
+            } catch (Exception e) {
+                logger.warn("destroy redis shard connection factory error, node : {}", node.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+        getNodes().forEach(RedisShardRouter::destroyQuietly);
+    }
+}
@@ -0,0 +1,110 @@
+package com.nebula.redis.shard;
+
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @Description 分片缓存写入器:按缓存key在一致性哈希环上选择节点读写，迁移窗口内读未命中时回读旧节点(命中后迁移到新节点)，删除同时作用于新旧节点，
+ * 清理缓存时遍历所有节点；命中率等统计在分片层记录，回读旧节点命中只计一次命中
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class ShardedRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisShardRouter router;
+
+    private final BatchStrategy batchStrategy;
+
+    private final CacheStatisticsCollector statistics;
+
+    private final ConcurrentMap<RedisShardRouter.Node, RedisCacheWriter> writers = new ConcurrentHashMap<>();
+
+    public ShardedRedisCacheWriter(RedisShardRouter router, BatchStrategy batchStrategy) {
+        this(router, batchStrategy, CacheStatisticsCollector.none());
+    }
+
+    private ShardedRedisCacheWriter(RedisShardRouter router, BatchStrategy batchStrategy, CacheStatisticsCollector statistics) {
+        this.router = router;
+        this.batchStrategy = batchStrategy;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        writer(router.nodeFor(key)).put(name, key, value, ttl);
+        statistics.incPuts(name);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        byte[] value = writer(router.nodeFor(key)).get(name, key);
+        if (value == null) {
+            RedisShardRouter.Node previous = router.previousNodeFor(key);
+            if (previous != null) {
+                value = writer(previous).get(name, key);
+                if (value != null) {
+                    router.migrateAsync(key);
+                }
+            }
+        }
+        statistics.incGets(name);
+        if (value != null) {
+            statistics.incHits(name);
+        } else {
+            statistics.incMisses(name);
+        }
+        return value;
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        byte[] existing = writer(router.nodeFor(key)).putIfAbsent(name, key, value, ttl);
+        if (existing == null) {
+            statistics.incPuts(name);
+        }
+        return existing;
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        writer(router.nodeFor(key)).remove(name, key);
+        RedisShardRouter.Node previous = router.previousNodeFor(key);
+        if (previous != null) {
+            writer(previous).remove(name, key);
+        }
+        statistics.incDeletes(name);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        for (RedisShardRouter.Node node : router.getNodes()) {
+            writer(node).clean(name, pattern);
+        }
+        statistics.incDeletes(name);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        statistics.reset(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new ShardedRedisCacheWriter(router, batchStrategy, cacheStatisticsCollector);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return statistics.getCacheStatistics(cacheName);
+    }
+
+    private RedisCacheWriter writer(RedisShardRouter.Node node) {
+        return writers.computeIfAbsent(node, n -> RedisCacheWriter.nonLockingRedisCacheWriter(n.getConnectionFactory(), batchStrategy));
+    }
+}
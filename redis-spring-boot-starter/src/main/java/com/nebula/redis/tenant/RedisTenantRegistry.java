@@ -0,0 +1,210 @@
+package com.nebula.redis.tenant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @Description 租户注册表:按租户创建并缓存TenantRedisService视图，租户可单独指定连接工厂(分片)和配额，
+ * 未指定时使用默认RedisTemplate和默认配额；定时校正各租户的key数，每个节点只SCAN一次租户前缀，按租户前缀归类计数
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisTenantRegistry implements DisposableBean {
+
+    private static Logger logger = LoggerFactory.getLogger(RedisTenantRegistry.class);
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    /**
+     * 新租户创建后合并校正的延迟
+     */
+    private static final long NEW_TENANT_REFRESH_DELAY_MILLIS = 100;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final String keyPrefix;
+
+    private volatile TenantQuota defaultQuota;
+
+    private final ConcurrentMap<String, TenantRedisService> tenants = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, RedisTemplate<String, Object>> shards = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, TenantQuota> quotas = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService executor;
+
+    /**
+     * 新租户触发的校正是否已在排队，多个租户同时创建时合并为一次
+     */
+    private final AtomicBoolean refreshPending = new AtomicBoolean();
+
+    /**
+     * @param redisTemplate 默认模板，分片模板复制其序列化配置
+     * @param keyPrefix 租户key前缀，完整前缀为 keyPrefix + 租户id + :
+     * @param defaultQuota
+     * @param refreshIntervalMillis key数校正间隔，小于等于0表示不校正
+     */
+    public RedisTenantRegistry(RedisTemplate<String, Object> redisTemplate, String keyPrefix, TenantQuota defaultQuota,
+                               long refreshIntervalMillis) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.defaultQuota = defaultQuota;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "redis-tenant-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (refreshIntervalMillis > 0) {
+            executor.scheduleWithFixedDelay(this::refreshKeyCounts, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取租户视图，首次获取时触发一次key数校正(与同时创建的租户合并)
+     * @param tenantId
+     * @return
+     */
+    public TenantRedisService forTenant(String tenantId) {
+        TenantRedisService tenant = tenants.get(tenantId);
+        if (tenant != null) {
+            return tenant;
+        }
+        return tenants.computeIfAbsent(tenantId, id -> {
+            TenantRedisService created = new TenantRedisService(id, keyPrefix + id + ":",
+                    shards.getOrDefault(id, redisTemplate), quotas.getOrDefault(id, defaultQuota));
+            if (refreshPending.compareAndSet(false, true)) {
+                executor.schedule(this::refreshKeyCounts, NEW_TENANT_REFRESH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * 将租户路由到指定连接工厂，已创建的视图会被替换
+     * @param tenantId
+     * @param connectionFactory
+     */
+    public void registerShard(String tenantId, RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(redisTemplate.getKeySerializer());
+        template.setValueSerializer(redisTemplate.getValueSerializer());
+        template.setHashKeySerializer(redisTemplate.getHashKeySerializer());
+        template.setHashValueSerializer(redisTemplate.getHashValueSerializer());
+        template.afterPropertiesSet();
+        shards.put(tenantId, template);
+        tenants.remove(tenantId);
+    }
+
+    /**
+     * 设置租户配额，立即生效
+     * @param tenantId
+     * @param quota
+     */
+    public void setQuota(String tenantId, TenantQuota quota) {
+        quotas.put(tenantId, quota);
+        TenantRedisService tenant = tenants.get(tenantId);
+        if (tenant != null) {
+            tenant.setQuota(quota);
+        }
+    }
+
+    /**
+     * 设置默认配额，对未单独设置配额的租户立即生效
+     * @param quota
+     */
+    public void setDefaultQuota(TenantQuota quota) {
+        this.defaultQuota = quota;
+        tenants.forEach((id, tenant) -> {
+            if (!quotas.containsKey(id)) {
+                tenant.setQuota(quota);
+            }
+        });
+    }
+
+    public Collection<TenantRedisService> getTenants() {
+        return Collections.unmodifiableCollection(tenants.values());
+    }
+
+    /**
+     * 按连接工厂(节点)分组，每个节点SCAN一次 keyPrefix* ，按租户前缀归类计数
+     */
+    private void refreshKeyCounts() {
+        refreshPending.set(false);
+        Map<RedisConnectionFactory, Map<String, TenantRedisService>> groups = new HashMap<>();
+        for (TenantRedisService tenant : tenants.values()) {
+            groups.computeIfAbsent(tenant.getRedisTemplate().getConnectionFactory(), f -> new HashMap<>())
+                    .put(tenant.getKeyPrefix(), tenant);
+        }
+        groups.forEach((factory, prefixes) -> {
+            try {
+                Map<TenantRedisService, Long> counts = scanKeyCounts(prefixes);
+                prefixes.values().forEach(tenant -> tenant.setKeyCount(counts.getOrDefault(tenant, 0L)));
+            } catch (Exception e) {
+                logger.error("refresh tenant key count error, tenants : {}", prefixes.size(), e);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<TenantRedisService, Long> scanKeyCounts(Map<String, TenantRedisService> prefixes) {
+        RedisTemplate<String, Object> template = prefixes.values().iterator().next().getRedisTemplate();
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) template.getKeySerializer();
+        Map<TenantRedisService, Long> counts = new HashMap<>();
+        template.execute((RedisCallback<Object>) connection -> {
+            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions()
+                    .match(keyPrefix + "*").count(SCAN_BATCH_SIZE).build())) {
+                while (cursor.hasNext()) {
+                    TenantRedisService tenant = tenantOf(keySerializer.deserialize(cursor.next()), prefixes);
+                    if (tenant != null) {
+                        counts.merge(tenant, 1L, Long::sum);
+                    }
+                }
+            }
+            return null;
+        });
+        return counts;
+    }
+
+    /**
+     * 租户前缀为 keyPrefix + 租户id + : ，租户id本身可能含有:，依次尝试每个分隔位置
+     */
+    private TenantRedisService tenantOf(String key, Map<String, TenantRedisService> prefixes) {
+        if (key == null) {
+            return null;
+        }
+        int index = key.indexOf(':', keyPrefix.length());
+        while (index >= 0) {
+            TenantRedisService tenant = prefixes.get(key.substring(0, index + 1));
+            if (tenant != null) {
+                return tenant;
+            }
+            index = key.indexOf(':', index + 1);
+        }
+        return null;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,34 @@
+package com.nebula.redis.tenant;
+
+/**
+ * @Description 租户配额，小于等于0表示不限制
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class TenantQuota {
+
+    public static final TenantQuota UNLIMITED = new TenantQuota(0, 0);
+
+    /**
+     * 每秒最大操作数
+     */
+    private final long opsPerSecond;
+
+    /**
+     * 最大key数
+     */
+    private final long maxKeys;
+
+    public TenantQuota(long opsPerSecond, long maxKeys) {
+        this.opsPerSecond = opsPerSecond;
+        this.maxKeys = maxKeys;
+    }
+
+    public long getOpsPerSecond() {
+        return opsPerSecond;
+    }
+
+    public long getMaxKeys() {
+        return maxKeys;
+    }
+}
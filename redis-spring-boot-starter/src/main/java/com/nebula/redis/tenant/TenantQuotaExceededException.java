@@ -0,0 +1,20 @@
+package com.nebula.redis.tenant;
+
+/**
+ * @Description 租户配额超限异常
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class TenantQuotaExceededException extends RuntimeException {
+
+    private final String tenantId;
+
+    public TenantQuotaExceededException(String tenantId, String message) {
+        super("tenant quota exceeded, tenant : " + tenantId + ", " + message);
+        this.tenantId = tenantId;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+}
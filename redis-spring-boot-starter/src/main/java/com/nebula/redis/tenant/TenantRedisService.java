@@ -0,0 +1,352 @@
+package com.nebula.redis.tenant;
+
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Description 租户视图:所有key自动加上租户前缀，按租户在本地统计操作数、写入字节数和key数，
+ * 并在本地执行每秒操作数和key数配额(超限抛出TenantQuotaExceededException)。
+ * key数以定期SCAN的结果为基准，期间写操作通过Lua脚本在同一次调用中判断key是否为新建，只有新建key才计数，过期淘汰的key在下次刷新时校正
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class TenantRedisService {
+
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    /**
+     * ARGV: 值, 过期时间(秒，小于等于0表示不过期)。返回key是否为新建(1/0)
+     */
+    private static final RedisScript<Long> SET_SCRIPT = new DefaultRedisScript<>(
+            "local created = redis.call('EXISTS', KEYS[1]) == 0 and 1 or 0 " +
+            "if tonumber(ARGV[2]) > 0 then redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) " +
+            "else redis.call('SET', KEYS[1], ARGV[1]) end " +
+            "return created", Long.class);
+
+    /**
+     * ARGV: 字段1, 值1, 字段2, 值2...。返回key是否为新建(1/0)
+     */
+    private static final RedisScript<Long> HSET_SCRIPT = new DefaultRedisScript<>(
+            "local created = redis.call('EXISTS', KEYS[1]) == 0 and 1 or 0 " +
+            "redis.call('HMSET', KEYS[1], unpack(ARGV)) " +
+            "return created", Long.class);
+
+    private final String tenantId;
+
+    private final String keyPrefix;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private volatile TenantQuota quota;
+
+    private final AtomicLong windowSecond = new AtomicLong();
+
+    private final AtomicLong windowOps = new AtomicLong();
+
+    private final LongAdder totalOps = new LongAdder();
+
+    private final LongAdder rejectedOps = new LongAdder();
+
+    private final LongAdder bytesWritten = new LongAdder();
+
+    private final LongAdder valuesWritten = new LongAdder();
+
+    private final AtomicLong keyCount = new AtomicLong();
+
+    TenantRedisService(String tenantId, String keyPrefix, RedisTemplate<String, Object> redisTemplate, TenantQuota quota) {
+        this.tenantId = tenantId;
+        this.keyPrefix = keyPrefix;
+        this.redisTemplate = redisTemplate;
+        this.quota = quota;
+    }
+
+    public boolean hasKey(String key) {
+        acquire();
+        return Boolean.TRUE.equals(redisTemplate.hasKey(key(key)));
+    }
+
+    public boolean expire(String key, long time) {
+        acquire();
+        return Boolean.TRUE.equals(redisTemplate.expire(key(key), time, TimeUnit.SECONDS));
+    }
+
+    public long getExpire(String key) {
+        acquire();
+        Long expire = redisTemplate.getExpire(key(key), TimeUnit.SECONDS);
+        return expire == null ? -2 : expire;
+    }
+
+    public boolean del(String... keys) {
+        acquire();
+        List<String> tenantKeys = new ArrayList<>(keys.length);
+        for (String key : keys) {
+            tenantKeys.add(key(key));
+        }
+        Long deleted = redisTemplate.delete(tenantKeys);
+        if (deleted != null && deleted > 0) {
+            keyCount.addAndGet(-deleted);
+        }
+        return deleted != null && deleted > 0;
+    }
+
+    /**
+     * 添加值
+     * @param key
+     * @param value
+     */
+    public void set(String key, Object value) {
+        set(key, value, 0);
+    }
+
+    /**
+     * 添加值并设置过期时间
+     * @param key
+     * @param value
+     * @param time 秒，小于等于0表示不过期
+     */
+    public void set(String key, Object value, long time) {
+        acquireForNewKey();
+        byte[] rawValue = rawValue(value);
+        byte[] rawTime = String.valueOf(time).getBytes(StandardCharsets.UTF_8);
+        countCreated(eval(SET_SCRIPT, key, rawValue, rawTime));
+    }
+
+    public boolean setIfAbsent(String key, Object value) {
+        acquireForNewKey();
+        byte[] rawKey = rawKey(key);
+        byte[] rawValue = rawValue(value);
+        Boolean set = redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.stringCommands().setNX(rawKey, rawValue));
+        if (Boolean.TRUE.equals(set)) {
+            keyCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    public Object get(String key) {
+        acquire();
+        return redisTemplate.opsForValue().get(key(key));
+    }
+
+    public List<Object> multiGet(Collection<String> keys) {
+        acquire();
+        List<String> tenantKeys = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            tenantKeys.add(key(key));
+        }
+        return redisTemplate.opsForValue().multiGet(tenantKeys);
+    }
+
+    public long increment(String key, long delta) {
+        acquireForNewKey();
+        Long value = redisTemplate.opsForValue().increment(key(key), delta);
+        if (value != null && value == delta) {
+            keyCount.incrementAndGet();
+        }
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * 向hash表中放入数据
+     * @param key
+     * @param hk
+     * @param hv
+     */
+    public void put(String key, Object hk, Object hv) {
+        acquireForNewKey();
+        byte[] rawHashKey = rawHashKey(hk);
+        byte[] rawHashValue = rawHashValue(hv);
+        countCreated(eval(HSET_SCRIPT, key, rawHashKey, rawHashValue));
+    }
+
+    public void putAll(String key, Map<String, Object> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        acquireForNewKey();
+        Object[] args = new Object[map.size() * 2];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            args[i++] = rawHashKey(entry.getKey());
+            args[i++] = rawHashValue(entry.getValue());
+        }
+        countCreated(eval(HSET_SCRIPT, key, args));
+    }
+
+    public Object get(String key, Object hashKey) {
+        acquire();
+        return redisTemplate.opsForHash().get(key(key), hashKey);
+    }
+
+    public Map<Object, Object> entries(String key) {
+        acquire();
+        return redisTemplate.opsForHash().entries(key(key));
+    }
+
+    public long delete(String key, Object... hashKeys) {
+        acquire();
+        Long deleted = redisTemplate.opsForHash().delete(key(key), hashKeys);
+        return deleted == null ? 0 : deleted;
+    }
+
+    /**
+     * 单独SCAN统计本租户key数，用于校正本地计数；定期校正由RedisTenantRegistry按节点一次SCAN统计所有租户
+     * @return
+     */
+    public long refreshKeyCount() {
+        Long count = redisTemplate.execute((RedisCallback<Long>) connection -> {
+            long scanned = 0;
+            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions()
+                    .match(keyPrefix + "*").count(SCAN_BATCH_SIZE).build())) {
+                while (cursor.hasNext()) {
+                    cursor.next();
+                    scanned++;
+                }
+            }
+            return scanned;
+        });
+        keyCount.set(count == null ? 0 : count);
+        return keyCount.get();
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    public TenantQuota getQuota() {
+        return quota;
+    }
+
+    void setQuota(TenantQuota quota) {
+        this.quota = quota;
+    }
+
+    void setKeyCount(long count) {
+        keyCount.set(count);
+    }
+
+    RedisTemplate<String, Object> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    /**
+     * 估算的key数
+     */
+    public long getKeyCount() {
+        return keyCount.get();
+    }
+
+    /**
+     * 估算的内存占用(字节)，为key数乘以平均写入值大小
+     */
+    public long getEstimatedMemory() {
+        long values = valuesWritten.sum();
+        return values == 0 ? 0 : keyCount.get() * (bytesWritten.sum() / values);
+    }
+
+    public long getTotalOps() {
+        return totalOps.sum();
+    }
+
+    public long getRejectedOps() {
+        return rejectedOps.sum();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * 每秒操作数配额，固定1秒窗口
+     */
+    private void acquire() {
+        long limit = quota.getOpsPerSecond();
+        if (limit > 0) {
+            long second = System.currentTimeMillis() / 1000;
+            long current = windowSecond.get();
+            if (current != second && windowSecond.compareAndSet(current, second)) {
+                windowOps.set(0);
+            }
+            if (windowOps.incrementAndGet() > limit) {
+                rejectedOps.increment();
+                throw new TenantQuotaExceededException(tenantId, "ops per second : " + limit);
+            }
+        }
+        totalOps.increment();
+    }
+
+    private void acquireForNewKey() {
+        long maxKeys = quota.getMaxKeys();
+        if (maxKeys > 0 && keyCount.get() >= maxKeys) {
+            rejectedOps.increment();
+            throw new TenantQuotaExceededException(tenantId, "max keys : " + maxKeys);
+        }
+        acquire();
+    }
+
+    /**
+     * 参数为已序列化的字节，不再经过序列化器
+     */
+    private Long eval(RedisScript<Long> script, String key, Object... rawArgs) {
+        return redisTemplate.execute(script, (RedisSerializer<?>) null, (RedisSerializer<Long>) null,
+                Collections.singletonList(key(key)), rawArgs);
+    }
+
+    private void countCreated(Long created) {
+        if (created != null && created == 1) {
+            keyCount.incrementAndGet();
+        }
+    }
+
+    private void recordWrite(int bytes) {
+        bytesWritten.add(bytes);
+        valuesWritten.increment();
+    }
+
+    private String key(String key) {
+        return keyPrefix + key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key(key));
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        byte[] raw = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+        recordWrite(raw == null ? 0 : raw.length);
+        return raw;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashKey(Object hashKey) {
+        return ((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(hashKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawHashValue(Object value) {
+        byte[] raw = ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(value);
+        recordWrite(raw == null ? 0 : raw.length);
+        return raw;
+    }
+}
@@ -0,0 +1,80 @@
+package com.nebula.redis.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Description CacheCircuitBreaker测试
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class CacheCircuitBreakerTest {
+
+	private static final long FAST = 1_000;
+
+	@Test
+	public void opensAfterConsecutiveFailures() {
+		CacheCircuitBreaker breaker = new CacheCircuitBreaker(3, 0, 60_000);
+		breaker.onFailure();
+		breaker.onFailure();
+		assertEquals(CacheCircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.allowRequest());
+		breaker.onFailure();
+		assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+		assertFalse(breaker.allowRequest());
+		assertEquals(3, breaker.getFailureCount());
+		assertEquals(2, breaker.getRejectedCount());
+		assertEquals(1, breaker.getOpenedCount());
+	}
+
+	@Test
+	public void successResetsConsecutiveFailures() {
+		CacheCircuitBreaker breaker = new CacheCircuitBreaker(2, 0, 60_000);
+		breaker.onFailure();
+		breaker.onSuccess(FAST);
+		breaker.onFailure();
+		assertEquals(CacheCircuitBreaker.State.CLOSED, breaker.getState());
+		breaker.onFailure();
+		assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+	}
+
+	@Test
+	public void slowCallCountsAsFailure() {
+		CacheCircuitBreaker breaker = new CacheCircuitBreaker(1, 10, 60_000);
+		breaker.onSuccess(5_000_000L);
+		assertEquals(CacheCircuitBreaker.State.CLOSED, breaker.getState());
+		breaker.onSuccess(20_000_000L);
+		assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(1, breaker.getFailureCount());
+	}
+
+	@Test
+	public void halfOpenAllowsSingleProbeAndClosesOnSuccess() {
+		CacheCircuitBreaker breaker = new CacheCircuitBreaker(1, 0, 0);
+		breaker.onFailure();
+		assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+		assertTrue(breaker.allowRequest());
+		assertEquals(CacheCircuitBreaker.State.HALF_OPEN, breaker.getState());
+		assertFalse(breaker.allowRequest());
+		breaker.onSuccess(FAST);
+		assertEquals(CacheCircuitBreaker.State.CLOSED, breaker.getState());
+		assertTrue(breaker.allowRequest());
+	}
+
+	@Test
+	public void halfOpenFailureReopens() {
+		CacheCircuitBreaker breaker = new CacheCircuitBreaker(5, 0, 0);
+		for (int i = 0; i < 5; i++) {
+			breaker.onFailure();
+		}
+		assertTrue(breaker.allowRequest());
+		assertEquals(CacheCircuitBreaker.State.HALF_OPEN, breaker.getState());
+		breaker.onFailure();
+		assertEquals(CacheCircuitBreaker.State.OPEN, breaker.getState());
+		assertEquals(2, breaker.getOpenedCount());
+	}
+}
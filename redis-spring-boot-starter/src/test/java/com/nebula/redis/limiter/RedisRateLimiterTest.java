@@ -0,0 +1,40 @@
+package com.nebula.redis.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @Description RedisRateLimiter参数校验测试，非法参数在访问Redis之前即被拒绝
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class RedisRateLimiterTest {
+
+    private final RedisRateLimiter limiter = new RedisRateLimiter(null, "limiter:");
+
+    @Test
+    public void nonPositivePermitsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire("key", 0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire("key", -5, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireLeased("key", -1, 10, 10, 5));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireLeased("key", 0, 10, 10, 0));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireSlidingLog("key", 0, 10, 1000));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireSlidingCounter("key", -1, 10, 1000));
+    }
+
+    @Test
+    public void permitsAboveCapacityOrLimitRejected() {
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire("key", 11, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireLeased("key", 11, 10, 10, 20));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireSlidingLog("key", 11, 10, 1000));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireSlidingCounter("key", 11, 10, 1000));
+    }
+
+    @Test
+    public void invalidRateOrWindowRejected() {
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire("key", 1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquire("key", 1, Double.NaN, 10));
+        assertThrows(IllegalArgumentException.class, () -> limiter.tryAcquireSlidingLog("key", 1, 10, 0));
+    }
+}
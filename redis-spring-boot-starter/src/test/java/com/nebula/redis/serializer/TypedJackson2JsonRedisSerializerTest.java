@@ -0,0 +1,78 @@
+package com.nebula.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @Description TypedJackson2JsonRedisSerializer测试
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class TypedJackson2JsonRedisSerializerTest {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	public static class User {
+
+		public Long id;
+
+		public String name;
+	}
+
+	@Test
+	public void roundTripWithoutTypeInfo() {
+		TypedJackson2JsonRedisSerializer serializer = TypedJackson2JsonRedisSerializer.of(objectMapper, User.class.getName());
+		User user = new User();
+		user.id = 1L;
+		user.name = "nebula";
+		byte[] bytes = serializer.serialize(user);
+		assertEquals("{\"id\":1,\"name\":\"nebula\"}", new String(bytes, StandardCharsets.UTF_8));
+		User read = (User) serializer.deserialize(bytes);
+		assertEquals(Long.valueOf(1), read.id);
+		assertEquals("nebula", read.name);
+	}
+
+	@Test
+	public void genericTypeRoundTrip() {
+		TypedJackson2JsonRedisSerializer serializer = TypedJackson2JsonRedisSerializer.of(objectMapper,
+				" java.util.List<java.util.Map<java.lang.String,java.lang.Long>> ");
+		List<Map<String, Long>> value = Arrays.asList(Collections.singletonMap("a", 1L));
+		assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+	}
+
+	@Test
+	public void nullValueRoundTrip() {
+		TypedJackson2JsonRedisSerializer serializer = TypedJackson2JsonRedisSerializer.of(objectMapper, User.class.getName());
+		byte[] bytes = serializer.serialize(NullValue.INSTANCE);
+		assertArrayEquals(TypedJackson2JsonRedisSerializer.NULL_VALUE, bytes);
+		assertSame(NullValue.INSTANCE, serializer.deserialize(bytes));
+	}
+
+	@Test
+	public void nullAndEmpty() {
+		TypedJackson2JsonRedisSerializer serializer = TypedJackson2JsonRedisSerializer.of(objectMapper, User.class.getName());
+		assertEquals(0, serializer.serialize(null).length);
+		assertNull(serializer.deserialize(null));
+		assertNull(serializer.deserialize(new byte[0]));
+	}
+
+	@Test
+	public void malformedJsonRejected() {
+		TypedJackson2JsonRedisSerializer serializer = TypedJackson2JsonRedisSerializer.of(objectMapper, User.class.getName());
+		assertThrows(SerializationException.class, () -> serializer.deserialize("{".getBytes(StandardCharsets.UTF_8)));
+	}
+}
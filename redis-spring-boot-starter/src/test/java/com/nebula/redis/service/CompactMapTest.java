@@ -0,0 +1,93 @@
+package com.nebula.redis.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Description CompactMap测试
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class CompactMapTest {
+
+    @Test
+    public void behavesLikeHashMap() {
+        int size = 1000;
+        List<String> shuffled = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            shuffled.add("field:" + i);
+        }
+        Collections.shuffle(shuffled);
+        String[] keys = new String[size];
+        Object[] values = new Object[size];
+        Map<String, Object> expected = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = shuffled.get(i);
+            values[i] = i;
+            expected.put(keys[i], i);
+        }
+        CompactMap<Object> map = CompactMap.of(keys, values, size);
+        assertEquals(size, map.size());
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        for (Map.Entry<String, Object> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertFalse(map.containsKey("missing"));
+        assertNull(map.get("missing"));
+        assertNull(map.get(1));
+    }
+
+    @Test
+    public void duplicateKeysKeepLastValue() {
+        String[] keys = {"b", "a", "b", "c", "a"};
+        Object[] values = {1, 2, 3, 4, 5};
+        CompactMap<Object> map = CompactMap.of(keys, values, keys.length);
+        assertEquals(3, map.size());
+        assertEquals(5, map.get("a"));
+        assertEquals(3, map.get("b"));
+        assertEquals(4, map.get("c"));
+        assertEquals(3, map.entrySet().size());
+    }
+
+    @Test
+    public void onlyValidLengthIsUsed() {
+        String[] keys = {"b", "a", null, null};
+        Object[] values = {1, 2, null, null};
+        CompactMap<Object> map = CompactMap.of(keys, values, 2);
+        assertEquals(2, map.size());
+        assertEquals(1, map.get("b"));
+        assertEquals(2, map.get("a"));
+    }
+
+    @Test
+    public void iteratesInKeyOrder() {
+        String[] keys = {"c", "a", "b"};
+        Object[] values = {3, 1, 2};
+        CompactMap<Object> map = CompactMap.of(keys, values, keys.length);
+        Map<String, Object> sorted = new TreeMap<>(map);
+        assertEquals(new ArrayList<>(sorted.keySet()), new ArrayList<>(map.keySet()));
+        assertEquals(new ArrayList<>(sorted.values()), new ArrayList<>(map.values()));
+    }
+
+    @Test
+    public void isReadOnly() {
+        CompactMap<Object> map = CompactMap.of(new String[]{"a"}, new Object[]{1}, 1);
+        assertThrows(UnsupportedOperationException.class, () -> map.put("b", 2));
+        assertThrows(UnsupportedOperationException.class, () -> map.entrySet().iterator().next().setValue(2));
+        assertTrue(CompactMap.of(new String[0], new Object[0], 0).isEmpty());
+    }
+}
@@ -0,0 +1,100 @@
+package com.nebula.redis.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @Description ConsistentHashRing测试
+ * @Author chenxudong
+ * @Date 2026/10/19 10:00
+ */
+public class ConsistentHashRingTest {
+
+    private static ConsistentHashRing<String> ring(String... names) {
+        Map<String, String> nodes = new LinkedHashMap<>();
+        for (String name : names) {
+            nodes.put(name, name);
+        }
+        return new ConsistentHashRing<>(nodes, 160);
+    }
+
+    @Test
+    public void hashTagKeysMapToSameNode() {
+        ConsistentHashRing<String> ring = ring("a", "b", "c", "d");
+        for (int i = 0; i < 1000; i++) {
+            String tag = "user:" + i;
+            String node = ring.nodeFor(tag);
+            assertSame(node, ring.nodeFor("{" + tag + "}:profile"));
+            assertSame(node, ring.nodeFor("orders:{" + tag + "}"));
+            assertSame(node, ring.nodeFor("{" + tag + "}:cart:{other}"));
+        }
+    }
+
+    @Test
+    public void stringAndBytesMapToSameNode() {
+        ConsistentHashRing<String> ring = ring("a", "b", "c");
+        for (int i = 0; i < 1000; i++) {
+            String key = "key:" + i;
+            assertSame(ring.nodeFor(key), ring.nodeFor(key.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void emptyOrUnclosedTagHashesWholeKey() {
+        ConsistentHashRing<String> ring = ring("a", "b", "c", "d");
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 4000; i++) {
+            counts.merge(ring.nodeFor("{}" + i), 1, Integer::sum);
+            counts.merge(ring.nodeFor("{" + i), 1, Integer::sum);
+        }
+        // 整个key参与哈希时应分布到所有节点，而不是全部落在空tag对应的同一节点
+        assertEquals(4, counts.size());
+    }
+
+    @Test
+    public void keysAreEvenlyDistributed() {
+        ConsistentHashRing<String> ring = ring("a", "b", "c");
+        Map<String, Integer> counts = new HashMap<>();
+        int total = 30000;
+        for (int i = 0; i < total; i++) {
+            counts.merge(ring.nodeFor("key:" + i), 1, Integer::sum);
+        }
+        assertEquals(3, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(count > total / 5, "unbalanced distribution : " + counts);
+        }
+    }
+
+    @Test
+    public void addingNodeOnlyMovesKeysToNewNode() {
+        ConsistentHashRing<String> before = ring("a", "b", "c");
+        ConsistentHashRing<String> after = ring("a", "b", "c", "d");
+        int moved = 0;
+        int total = 10000;
+        for (int i = 0; i < total; i++) {
+            String key = "key:" + i;
+            String previous = before.nodeFor(key);
+            String current = after.nodeFor(key);
+            if (!previous.equals(current)) {
+                assertEquals("d", current);
+                moved++;
+            }
+        }
+        assertTrue(moved > total / 8 && moved < total / 2, "moved keys : " + moved);
+    }
+
+    @Test
+    public void emptyNodesRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing<>(Collections.emptyMap(), 160));
+    }
+}